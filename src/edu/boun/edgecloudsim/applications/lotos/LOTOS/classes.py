@@ -1,4 +1,5 @@
 import json
+import struct
 
 CONFIG_FILE = '../../../../../../../scripts/lotos/solver_configs/_conf.json'
 EXCLUSION_FILE = '../../../../../../../scripts/lotos/solver_configs/_exclusion.json'
@@ -44,6 +45,11 @@ class Task:
         self.delay_limit = delay_limit
         self.delta_inicial = delta_inicial
         self.waiting_time = waiting_time
+        # delays shipped by the simulator, indexed by number of users - 1 (None in the json files)
+        self.wlan_delay = None
+        self.wan_delay = None
+        # stage 1 weight, below 1 for the placeholders of predicted arrivals
+        self.weight = 1
         
 class VM:
     def __init__(self, vm_id, cpu_capacity, ram_capacity, cores, millions_of_instructions, ap, typ, cost_initialize, cost_per_time, legacy_tasks):
@@ -127,50 +133,61 @@ def read_man():
 
 
 def read_config():
-    config_list  = {}
     with open(CONFIG_FILE) as json_file:
         cfgs = json.load(json_file)
-        cfgs = cfgs["conf"]
-
-        for item in cfgs:
-            conf_id = cfgs[item]['id']
-            cost = cfgs[item]['cost']
-            vm = cfgs[item]['vm']
-            tasks = cfgs[item]['tasks']
-            cpu = cfgs[item]['cpu']       
-            ram = cfgs[item]['ram']
-            wlan = cfgs[item]['wlan']
-            wan = cfgs[item]['wan']
-            man = cfgs[item]['man']
-            processing_time = cfgs[item]['processing_time']
-            comunication_time = cfgs[item]['comunication_time']
-            waiting_time = cfgs[item]['waiting_time']
-            cost_initialize = cfgs[item]['cost_initialize']
-            cost_per_time = cfgs[item]['cost_per_time']
-
-            cfg = Config(conf_id, cost, vm, tasks, cpu, ram, wlan, wan, man, processing_time, comunication_time, cost_initialize, cost_per_time, waiting_time)
-
-            config_list['c' + str(conf_id)] = cfg
+
+    return configs_from_dict(cfgs)
+
+
+
+def configs_from_dict(cfgs):
+    config_list  = {}
+    cfgs = cfgs["conf"]
+
+    for item in cfgs:
+        conf_id = cfgs[item]['id']
+        cost = cfgs[item]['cost']
+        vm = cfgs[item]['vm']
+        tasks = cfgs[item]['tasks']
+        cpu = cfgs[item]['cpu']       
+        ram = cfgs[item]['ram']
+        wlan = {str(ap): cfgs[item]['wlan'][ap] for ap in cfgs[item]['wlan']}
+        wan = {str(ap): cfgs[item]['wan'][ap] for ap in cfgs[item]['wan']}
+        man = cfgs[item]['man']
+        processing_time = cfgs[item]['processing_time']
+        comunication_time = cfgs[item]['comunication_time']
+        waiting_time = cfgs[item]['waiting_time']
+        cost_initialize = cfgs[item]['cost_initialize']
+        cost_per_time = cfgs[item]['cost_per_time']
+
+        cfg = Config(conf_id, cost, vm, tasks, cpu, ram, wlan, wan, man, processing_time, comunication_time, cost_initialize, cost_per_time, waiting_time)
+
+        config_list['c' + str(conf_id)] = cfg
 
     return config_list
 
 
 
 def read_exclusions():
-    exclusion_list  = {}
-
     with open(EXCLUSION_FILE) as json_file:
         excs = json.load(json_file)
 
-        excs = excs["exclusion"]
+    return exclusions_from_dict(excs)
 
-        for item in excs:
-            exc_id = item
-            exclusion = excs[item]
 
-            exc = Exclusion(exc_id, exclusion)
 
-            exclusion_list[item] = exc
+def exclusions_from_dict(excs):
+    exclusion_list  = {}
+
+    excs = excs["exclusion"]
+
+    for item in excs:
+        exc_id = item
+        exclusion = excs[item]
+
+        exc = Exclusion(exc_id, exclusion)
+
+        exclusion_list[item] = exc
 
 
     return exclusion_list
@@ -207,4 +224,157 @@ def read_tasks():
 
             tasks_list['t' + str(task_id)] = task
 
-    return tasks_list, user_list, sim_time
\ No newline at end of file
+    return tasks_list, user_list, sim_time
+
+
+
+#-------------------------Binary batch snapshot-------------------------
+#Same layout as LOTOSBatch.writeTo (big endian)
+TASK_RECORD = struct.Struct('>i4di7d')
+VM_RECORD = struct.Struct('>2didi?2di')
+AP_RECORD = struct.Struct('>i2d')
+MAN_RECORD = struct.Struct('>di5d')
+HEADER_RECORD = struct.Struct('>idi')
+COUNT_RECORD = struct.Struct('>i')
+CONFIG_RECORD = struct.Struct('>2i2di?i')
+CONFIG_TASK_RECORD = struct.Struct('>i3d')
+CONFIG_AP_RECORD = struct.Struct('>2i')
+DELAY_RECORD = struct.Struct('>d')
+
+BATCH_VERSION = 4
+
+def read_batch(buffer):
+    tasks_list  = {}
+    user_list = {}
+    vms_list  = {}
+    aps_list  = {}
+    man_info  = {}
+
+    version, sim_time, number_of_tasks = HEADER_RECORD.unpack_from(buffer, 0)
+    offset = HEADER_RECORD.size
+
+    if version != BATCH_VERSION:
+        raise ValueError("unknown batch version " + str(version))
+
+    for task_id in range(number_of_tasks):
+        (user_id, upload_size, download_size, cores_demand, millions_of_instructions, ap, delta_inicial, waiting_time,
+            processing_demand_edge, processing_demand_cloud, ram_demand, delay_limit, weight) = TASK_RECORD.unpack_from(buffer, offset)
+        offset = offset + TASK_RECORD.size
+
+        user_list['u' + str(user_id)] = ram_demand
+
+        task = Task(task_id, user_id, processing_demand_edge, processing_demand_cloud, ram_demand, upload_size, download_size, cores_demand, millions_of_instructions, ap, delay_limit, delta_inicial, waiting_time)
+        task.weight = weight
+
+        tasks_list['t' + str(task_id)] = task
+
+    number_of_vms, = COUNT_RECORD.unpack_from(buffer, offset)
+    offset = offset + COUNT_RECORD.size
+
+    for vm_id in range(number_of_vms):
+        (cpu_capacity, ram_capacity, cores, millions_of_instructions, ap, cloud,
+            cost_initialize, cost_per_time, legacy_tasks) = VM_RECORD.unpack_from(buffer, offset)
+        offset = offset + VM_RECORD.size
+
+        typ = 'Cloud' if cloud else 'Edge'
+
+        vm = VM(vm_id, cpu_capacity, ram_capacity, cores, millions_of_instructions, ap, typ, cost_initialize, cost_per_time, legacy_tasks)
+
+        vms_list['v' + str(vm_id)] = vm
+
+    number_of_aps, = COUNT_RECORD.unpack_from(buffer, offset)
+    offset = offset + COUNT_RECORD.size
+
+    for item in range(number_of_aps):
+        ap_id, wlan_capacity, wan_capacity = AP_RECORD.unpack_from(buffer, offset)
+        offset = offset + AP_RECORD.size
+
+        aps_list[str(ap_id)] = AP(ap_id, wlan_capacity, wan_capacity)
+
+    (man_capacity, man_info["dev_count"], man_info["poisson_dl"], man_info["poisson_ul"],
+        man_info["avg_upload"], man_info["avg_download"], man_info["man_bandwidth"]) = MAN_RECORD.unpack_from(buffer, offset)
+    offset = offset + MAN_RECORD.size
+
+    # network delays of NetworkModel.getBatchDelays
+    max_users, = COUNT_RECORD.unpack_from(buffer, offset)
+    offset = offset + COUNT_RECORD.size
+    delay_record = struct.Struct('>' + str(max_users) + 'd')
+
+    for task_id in range(number_of_tasks):
+        task = tasks_list['t' + str(task_id)]
+        task.wlan_delay = delay_record.unpack_from(buffer, offset)
+        offset = offset + delay_record.size
+        task.wan_delay = delay_record.unpack_from(buffer, offset)
+        offset = offset + delay_record.size
+
+    man_info["man_delay"], = DELAY_RECORD.unpack_from(buffer, offset)
+    offset = offset + DELAY_RECORD.size
+
+    columns = read_columns(buffer, offset, tasks_list, vms_list)
+
+    return tasks_list, user_list, sim_time, vms_list, aps_list, man_capacity, man_info, columns
+
+
+
+def read_columns(buffer, offset, tasks, vms):
+    # configurations enumerated in java, None if create_config has to build them
+    number_of_configs, = COUNT_RECORD.unpack_from(buffer, offset)
+    offset = offset + COUNT_RECORD.size
+
+    if number_of_configs < 0:
+        return None
+
+    dictionary = {}
+    dictionary['conf'] = {}
+
+    exclusion = {}
+    exclusion['exclusion'] = {}
+
+    for t in tasks:
+        exclusion['exclusion'][t] = []
+
+    for i in range(1, number_of_configs + 1):
+        vm_id, number_of_tasks, cpu, ram, man, wan, number_of_aps = CONFIG_RECORD.unpack_from(buffer, offset)
+        offset = offset + CONFIG_RECORD.size
+
+        v = 'v' + str(vm_id)
+        combination = []
+        proc_t = {}
+        comu_t = {}
+        wait_t = {}
+        wlan = {}
+
+        for item in range(number_of_tasks):
+            task_id, processing_time, comunication_time, waiting_time = CONFIG_TASK_RECORD.unpack_from(buffer, offset)
+            offset = offset + CONFIG_TASK_RECORD.size
+
+            c = 't' + str(task_id)
+            combination.append(c)
+            proc_t[c] = processing_time
+            comu_t[c] = comunication_time
+            wait_t[c] = waiting_time
+            exclusion['exclusion'][c].append(i)
+
+        for item in range(number_of_aps):
+            ap_id, users = CONFIG_AP_RECORD.unpack_from(buffer, offset)
+            offset = offset + CONFIG_AP_RECORD.size
+
+            wlan[ap_id] = users
+
+        dictionary['conf'][i] = {}
+        dictionary['conf'][i]['id'] = i
+        dictionary['conf'][i]['cost'] = sum(tasks[c].weight for c in combination)
+        dictionary['conf'][i]['vm'] = v
+        dictionary['conf'][i]['tasks'] = combination
+        dictionary['conf'][i]['cpu'] = cpu
+        dictionary['conf'][i]['ram'] = ram
+        dictionary['conf'][i]['wlan'] = wlan
+        dictionary['conf'][i]['wan'] = wlan if wan else []
+        dictionary['conf'][i]['man'] = man
+        dictionary['conf'][i]['processing_time'] = proc_t
+        dictionary['conf'][i]['comunication_time'] = comu_t
+        dictionary['conf'][i]['waiting_time'] = wait_t
+        dictionary['conf'][i]['cost_initialize'] = vms[v].cost_initialize
+        dictionary['conf'][i]['cost_per_time'] = vms[v].cost_per_time
+
+    return dictionary, exclusion
@@ -24,7 +24,7 @@ def config_data(v, combination, tasks, vms, dictionary, i, man, sim_time):
 
     dictionary['conf'][i] = {}
     dictionary['conf'][i]['id'] = i
-    dictionary['conf'][i]['cost'] = len(combination)
+    dictionary['conf'][i]['cost'] = sum(tasks[c].weight for c in combination)
     dictionary['conf'][i]['vm'] = v
     dictionary['conf'][i]['tasks'] = list(combination)
     dictionary['conf'][i]['cpu'] = cpu_max
@@ -100,7 +100,7 @@ def config_data(v, combination, tasks, vms, dictionary, i, man, sim_time):
 
     return dictionary
     
-def create_config(tasks, users, aps, vms, man, sim_time):
+def create_config(tasks, users, aps, vms, man, sim_time, dump=True):
     dictionary = {}
     dictionary['conf'] = {}
 
@@ -121,6 +121,12 @@ def create_config(tasks, users, aps, vms, man, sim_time):
             conf = config_data(v, c, tasks, vms, dictionary, i, man, sim_time)
             i = i + 1
 
+    if dump:
+        write_config(dictionary, exclusion)
+
+    return dictionary, exclusion
+
+def write_config(dictionary, exclusion):
     json_object = json.dumps(dictionary, indent=4)
     with open(CONFIG_FILE, "w") as outfile:
         outfile.write(json_object)
@@ -129,9 +135,8 @@ def create_config(tasks, users, aps, vms, man, sim_time):
     json_object = json.dumps(exclusion, indent=4)
     with open(EXCLUSION_FILE, "w") as outfile2:
         outfile2.write(json_object)
-    
 
-if __name__ == '__main__':
+def run(instance):
     start = time.time()
 
     tasks, users, sim_time = read_tasks()
@@ -147,7 +152,11 @@ if __name__ == '__main__':
 
     final = time.time()
 
-    record_time_of_solution("create_config=", final - start, sys.argv[1])
+    record_time_of_solution("create_config=", final - start, instance)
+
+
+if __name__ == '__main__':
+    run(sys.argv[1])
 
 
 
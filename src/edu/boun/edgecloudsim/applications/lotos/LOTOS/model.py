@@ -8,6 +8,10 @@ import sys
 
 os.chdir(os.path.dirname(os.path.abspath(__file__)))
 
+# smallest time limit (seconds) given to CPLEX
+MIN_TIME_LIMIT = 0.05
+DEFAULT_MIPGAP = 1e-4 # CPLEX default relative gap
+
 def Mutual_Constraints(mdl, c, configs, vms, aps, man_capacity, exclusion, tasks, users):
     #------------------Restrição de processamento-------------------
     for v in vms:
@@ -63,56 +67,156 @@ def Mutual_Constraints(mdl, c, configs, vms, aps, man_capacity, exclusion, tasks
 
     #--------------------Restrição de consistência-------------------
     for v in vms:
-        for it in c:
-            mdl.add_constraint(mdl.sum(mdl.c[it] for it in c if configs[it].vm == v) <= 1, 'consistency')
+        mdl.add_constraint(mdl.sum(mdl.c[it] for it in c if configs[it].vm == v) <= 1, 'consistency')
     #----------------------------------------------------------------
 
 
-def record_solution(Stage, S1_vars, configs):
+def record_solution(Stage, S1_vars, configs, dump=True):
     dictionary = {}
     dictionary['solution'] = {}
     
     for item in S1_vars:
         for t in configs[item].tasks:
-            dictionary['solution'][t[1]] = configs[item].vm[1:]
+            dictionary['solution'][t[1:]] = configs[item].vm[1:]
+
+    if dump:
+        json_object = json.dumps(dictionary, indent=4)
 
-    json_object = json.dumps(dictionary, indent=4)
 
+        with open("../../../../../../../scripts/lotos/solver_solutions/" + Stage + "_sol.json", "w") as outfile:
+            outfile.write(json_object)
 
-    with open("../../../../../../../scripts/lotos/solver_solutions/" + Stage + "_sol.json", "w") as outfile:
-        outfile.write(json_object)
+    return dictionary
 
 
 
             
 
-def S1(configs, vms, aps, man_capacity, exclusion, tasks, users):
+# the model object is kept by the worker between batches, clearing it is
+# cheaper than creating a new CPLEX environment for every batch
+shared_model = None
+
+# tasks accepted by each VM in the last decision, used as the warm start pattern of the next batch
+previous_pattern = {}
+
+def get_model(name):
+    global shared_model
+
+    if shared_model is None:
+        shared_model = Model(name=name, log_output=False)
+    else:
+        shared_model.clear()
+        shared_model.name = name
+
+    return shared_model
+
+def set_time_limit(mdl, time_limit, absmipgap=1, mipgap=DEFAULT_MIPGAP):
+    # a gap of 1 stops S1 within one accepted task of the bound (the weight of
+    # a placeholder if the batch has some), the weighted objective needs both
+    # gaps at 0 since its whole cost term is below 1 and a relative gap would
+    # let it stop with a cost saving bought by a rejected task.
+    # The model is shared between solves, so both gaps are always set
+    mdl.parameters.mip.tolerances.absmipgap = absmipgap
+    mdl.parameters.mip.tolerances.mipgap = mipgap
+    if time_limit is not None:
+        mdl.parameters.timelimit = max(time_limit, MIN_TIME_LIMIT)
+
+def add_warm_start(mdl, variables):
+    warm_start = mdl.new_solution()
+    has_warm = False
+    for it in variables:
+        has_warm = True
+        warm_start.add_var_value(mdl.c[it], 1)
+    if has_warm:
+        mdl.add_mip_start(warm_start)
+
+def pattern_start(configs, vms, aps, man_capacity):
+    # greedy feasible start following the previous assignment pattern: the VMs
+    # that accepted tasks in the last batch are filled first, with as many tasks
+    # as they had before, the other VMs then take the largest configurations left
+    order = sorted(configs, key=lambda it: (-previous_pattern.get(configs[it].vm, 0), -len(configs[it].tasks), it))
+
+    used_tasks = set()
+    used_vms = set()
+    wlan = {ap: 0 for ap in aps}
+    wan = {ap: 0 for ap in aps}
+    man = 0
+    start = []
+
+    for previous in (True, False):
+        for it in order:
+            cfg = configs[it]
+            if cfg.vm in used_vms or cfg.vm not in vms or used_tasks.intersection(cfg.tasks):
+                continue
+            if previous and len(cfg.tasks) > previous_pattern.get(cfg.vm, 0):
+                continue
+            if man + cfg.man > man_capacity:
+                continue
+            if any(ap not in aps or wlan[ap] + cfg.wlan[ap] > aps[ap].wlan_capacity for ap in cfg.wlan):
+                continue
+            if any(ap not in aps or wan[ap] + cfg.wan[ap] > aps[ap].wan_capacity for ap in cfg.wan):
+                continue
+
+            start.append(it)
+            used_vms.add(cfg.vm)
+            used_tasks.update(cfg.tasks)
+            man += cfg.man
+            for ap in cfg.wlan:
+                wlan[ap] += cfg.wlan[ap]
+            for ap in cfg.wan:
+                wan[ap] += cfg.wan[ap]
+
+    return start
+
+def min_weight(tasks):
+    # smallest stage 1 weight of a task, 1 without placeholders
+    return min([1] + [tasks[t].weight for t in tasks])
+
+def stage2_cost(cfg):
+    return cfg.cost_initialize + sum(cfg.cost_per_time * (cfg.processing_time[task] + cfg.comunication_time[task]) for task in cfg.tasks)
+
+def build(configs, vms, aps, man_capacity, exclusion, tasks, users):
+    # both stages share the variables and the constraints, only the objective changes
+    mdl = get_model('Task orchestration')
 
-    mdl = Model(name='Task orchestration', log_output=False)
-    mdl.parameters.mip.tolerances.absmipgap = 1
-    
-    
     #--------------Criação de variável de decisão c -----------------
     c = ['c' + str(configs[c].id) for c in configs]
     mdl.c = mdl.binary_var_dict(keys=c, name='C')
     #----------------------------------------------------------------
 
+    Mutual_Constraints(mdl, c, configs, vms, aps, man_capacity, exclusion, tasks, users)
+
+    return mdl, c
+
+def S1(mdl, c, configs, vms, aps, man_capacity, dump=True, time_limit=None, absmipgap=1):
+
+    set_time_limit(mdl, time_limit, absmipgap)
+
 
     #------------------Função objetivo------------------------------
     fo = mdl.sum(mdl.c[it]*configs[it].cost for it in c)
     mdl.maximize(fo)
     #----------------------------------------------------------------
+
+
+    #---------------Warm Start do lote anterior----------------------
+    add_warm_start(mdl, pattern_start(configs, vms, aps, man_capacity))
+    #----------------------------------------------------------------
     
-    Mutual_Constraints(mdl, c, configs, vms, aps, man_capacity, exclusion, tasks, users)
 
     #-----------------------------Solve------------------------------
-    mdl.solve()
+    solution = mdl.solve()
     #print(mdl.solution)
     #print(mdl.solve_details)
     #print(mdl.statistics)
-    mdl.export_as_lp("../../../../../../../scripts/lotos/solver_solutions/model_s1.lp")
+    if dump:
+        mdl.export_as_lp("../../../../../../../scripts/lotos/solver_solutions/model_s1.lp")
     #----------------------------------------------------------------
 
+    # no incumbent within the time limit
+    if solution is None:
+        return None, []
+
 
     
     #--------------------------Warm Start----------------------------
@@ -123,27 +227,24 @@ def S1(configs, vms, aps, man_capacity, exclusion, tasks, users):
     #----------------------------------------------------------------
 
 
-    record_solution("S1", S1_vars, configs)
-    return mdl.solution.get_objective_value(), S1_vars
+    record_solution("S1", S1_vars, configs, dump)
+    return solution.get_objective_value(), S1_vars
 
-def S2(S1_Solution, S1_vars, configs, vms, aps, man_capacity, exclusion, tasks, users):
+def S2(mdl, c, S1_Solution, S1_vars, configs, dump=True, time_limit=None):
 
-    mdl = Model(name='Minimize cost', log_output=False)
-    mdl.parameters.mip.tolerances.absmipgap = 1
-    
-    
-    #--------------Criação de variável de decisão c -----------------
-    c = ['c' + str(configs[c].id) for c in configs]
-    mdl.c = mdl.binary_var_dict(keys=c, name='C')
-    #----------------------------------------------------------------
+    # the stage 1 solution is kept if there is no time left
+    if time_limit is not None and time_limit <= 0:
+        return record_solution("S2", S1_vars, configs, dump)
+
+    mdl.name = 'Minimize cost'
+    set_time_limit(mdl, time_limit)
     
 
     #------------------Função objetivo------------------------------
-    fo = mdl.sum(mdl.c[it]*configs[it].cost_initialize  for it in c) + mdl.sum(mdl.c[it]*configs[it].cost_per_time * (configs[it].processing_time[task] + configs[it].comunication_time[task]) for it in c for task in configs[it].tasks)
+    fo = mdl.sum(mdl.c[it]*stage2_cost(configs[it]) for it in c)
     mdl.minimize(fo)
     #----------------------------------------------------------------
     
-    Mutual_Constraints(mdl, c, configs, vms, aps, man_capacity, exclusion, tasks, users)  
 
     #------------------Manter resultado do Stage 1-------------------
     mdl.add_constraint(mdl.sum(mdl.c[it]*configs[it].cost for it in c) == S1_Solution, 'Stage 1 solution')
@@ -152,25 +253,23 @@ def S2(S1_Solution, S1_vars, configs, vms, aps, man_capacity, exclusion, tasks,
 
 
     #--------------------------Warm Start----------------------------
-    warm_start = mdl.new_solution()
-    has_warm = False
-    for it in S1_vars:
-        has_warm = True
-        warm_start.add_var_value(mdl.c[it], 1)
-    if has_warm:
-        mdl.add_mip_start(warm_start)
+    add_warm_start(mdl, S1_vars)
     #----------------------------------------------------------------
 
     
 
     #-----------------------------Solve------------------------------
-    mdl.solve()
+    solution = mdl.solve()
     #print(mdl.solution)
     #print(mdl.solve_details)
     #print(mdl.statistics)
-    mdl.export_as_lp("../../../../../../../scripts/lotos/solver_solutions/model_s2.lp")
+    if dump:
+        mdl.export_as_lp("../../../../../../../scripts/lotos/solver_solutions/model_s2.lp")
     #----------------------------------------------------------------
 
+    if solution is None:
+        return record_solution("S2", S1_vars, configs, dump)
+
 
 
     #--------------------------Warm Start----------------------------
@@ -180,9 +279,108 @@ def S2(S1_Solution, S1_vars, configs, vms, aps, man_capacity, exclusion, tasks,
             S2_vars.append(it)
     #----------------------------------------------------------------
 
-    record_solution("S2", S2_vars, configs)
+    return record_solution("S2", S2_vars, configs, dump)
 
-def model():
+def remember_pattern(solution, configs):
+    # number of tasks accepted by each VM, seeds the warm start of the next batch
+    previous_pattern.clear()
+    for t in solution['solution']:
+        vm = 'v' + solution['solution'][t]
+        previous_pattern[vm] = previous_pattern.get(vm, 0) + 1
+
+def solve(configs, vms, aps, man_capacity, exclusion, tasks, users, instance, dump=True, time_limit=None):
+    # returns None if stage 1 finds no solution within time_limit (seconds)
+
+    start_f1 = time.time()
+
+    mdl, c = build(configs, vms, aps, man_capacity, exclusion, tasks, users)
+    
+    S1_Solution, S1_vars = S1(mdl, c, configs, vms, aps, man_capacity, dump, time_limit, min_weight(tasks))
+
+    if S1_Solution is None:
+        return None
+
+    start_f2 = time.time()
+
+    remaining = None
+    if time_limit is not None:
+        remaining = time_limit - (start_f2 - start_f1)
+    
+    solution = S2(mdl, c, S1_Solution, S1_vars, configs, dump, remaining)
+
+    final = time.time()
+
+    record_time_of_solution("F1=", start_f2 - start_f1, instance)
+    record_time_of_solution("F2=", final - start_f2, instance)
+
+    remember_pattern(solution, configs)
+
+    return solution
+
+def solve_weighted(configs, vms, aps, man_capacity, exclusion, tasks, users, instance, dump=True, time_limit=None):
+    # both stages in a single solve: the stage 1 objective is an integer (accepted tasks)
+    # and the stage 2 cost is scaled below 1 (below the weight of a placeholder if the batch
+    # has some), so no cost saving can pay for a rejected task.
+    # One configuration per VM bounds the cost by the most expensive configuration of each VM
+    start = time.time()
+
+    mdl, c = build(configs, vms, aps, man_capacity, exclusion, tasks, users)
+    set_time_limit(mdl, time_limit, 0, 0)
+
+    max_cost = {}
+    for it in c:
+        max_cost[configs[it].vm] = max(max_cost.get(configs[it].vm, 0), stage2_cost(configs[it]))
+    bound = sum(max_cost.values())
+    weight = min_weight(tasks) / (bound * (1 + 1e-6)) if bound > 0 else 0
+
+
+    #------------------Função objetivo------------------------------
+    fo = mdl.sum(mdl.c[it]*(configs[it].cost - weight * stage2_cost(configs[it])) for it in c)
+    mdl.maximize(fo)
+    #----------------------------------------------------------------
+
+
+    #---------------Warm Start do lote anterior----------------------
+    add_warm_start(mdl, pattern_start(configs, vms, aps, man_capacity))
+    #----------------------------------------------------------------
+
+
+    #-----------------------------Solve------------------------------
+    solution = mdl.solve()
+    if dump:
+        mdl.export_as_lp("../../../../../../../scripts/lotos/solver_solutions/model_weighted.lp")
+    #----------------------------------------------------------------
+
+    if solution is None:
+        return None
+
+    W_vars = []
+    for it in c:
+        if mdl.c[it].solution_value > 0:
+            W_vars.append(it)
+
+    record_time_of_solution("W=", time.time() - start, instance)
+
+    solution = record_solution("S2", W_vars, configs, dump)
+    remember_pattern(solution, configs)
+
+    return solution
+
+def evaluate(solution, configs):
+    # accepted tasks and stage 2 cost of a solution, used by the A/B comparison
+    chosen = {}
+    for t in solution['solution']:
+        vm = 'v' + solution['solution'][t]
+        chosen.setdefault(vm, set()).add('t' + t)
+
+    cost = 0
+    for it in configs:
+        if configs[it].vm in chosen and set(configs[it].tasks) == chosen[configs[it].vm]:
+            cost += stage2_cost(configs[it])
+
+    return len(solution['solution']), cost
+
+def model(instance):
 
     configs = read_config()
 
@@ -194,20 +392,9 @@ def model():
 
     tasks, users, _ = read_tasks()
 
-    start_f1 = time.time()
-    
-    S1_Solution, S1_vars = S1(configs, vms, aps, man_capacity, exclusion, tasks, users)
-
-    start_f2 = time.time()
-    
-    S2(S1_Solution, S1_vars, configs, vms, aps, man_capacity, exclusion, tasks, users)
-
-    final = time.time()
-
-    record_time_of_solution("F1=", start_f2 - start_f1, sys.argv[1])
-    record_time_of_solution("F2=", final - start_f2, sys.argv[1])
+    return solve(configs, vms, aps, man_capacity, exclusion, tasks, users, instance)
 
 if __name__ == '__main__':
     
-    model()
+    model(sys.argv[1])
 
@@ -0,0 +1,127 @@
+import sys
+import os
+import time
+import traceback
+
+os.chdir(os.path.dirname(os.path.abspath(__file__)))
+
+#---------Protocol channel (anything printed by the solver goes to stderr)---------
+channel = sys.stdout
+requests = sys.stdin.buffer
+sys.stdout = sys.stderr
+#----------------------------------------------------------------------------------
+
+import create_config
+import model
+from classes import *
+from tools import *
+
+
+def reply(message):
+    channel.write(message + "\n")
+    channel.flush()
+
+
+def solve_batch(instance, payload, dump, time_limit, mode="TWO_STAGE"):
+    # returns the elapsed time, the decision (None if there is no solution in time_limit)
+    # and the A/B report of the COMPARE mode
+    start = time.time()
+
+    tasks, users, sim_time, vms, aps, man_capacity, man, columns = read_batch(payload)
+
+    if columns is None:
+        dictionary, exclusion = create_config.create_config(tasks, users, aps, vms, man, sim_time, dump)
+    else:
+        # configurations already enumerated by LOTOSConfigurationGenerator
+        dictionary, exclusion = columns
+        if dump:
+            create_config.write_config(dictionary, exclusion)
+
+    record_time_of_solution("create_config=", time.time() - start, instance)
+
+    configs = configs_from_dict(dictionary)
+    exclusion = exclusions_from_dict(exclusion)
+
+    remaining = None
+    if time_limit > 0:
+        remaining = time_limit - (time.time() - start)
+
+    report = None
+
+    if mode == "WEIGHTED":
+        solution = model.solve_weighted(configs, vms, aps, man_capacity, exclusion, tasks, users, instance, dump, remaining)
+
+    elif mode == "COMPARE":
+        # the two stage decision is kept, the weighted one is only compared
+        start_w = time.time()
+        weighted = model.solve_weighted(configs, vms, aps, man_capacity, exclusion, tasks, users, instance, False, remaining)
+        start_s = time.time()
+        if remaining is not None:
+            # both solves share the budget of the batch
+            remaining -= start_s - start_w
+        solution = model.solve(configs, vms, aps, man_capacity, exclusion, tasks, users, instance, dump, remaining)
+        final = time.time()
+
+        if solution is not None and weighted is not None:
+            accepted, cost = model.evaluate(solution, configs)
+            accepted_w, cost_w = model.evaluate(weighted, configs)
+            match = accepted == accepted_w and abs(cost - cost_w) <= 1e-6 * max(abs(cost), 1e-12)
+            report = "AB " + ("1" if match else "0") + " " + str(final - start_s) + " " + str(start_s - start_w)
+
+    else:
+        solution = model.solve(configs, vms, aps, man_capacity, exclusion, tasks, users, instance, dump, remaining)
+
+    if solution is None:
+        return time.time() - start, None, None
+
+    solution = solution['solution']
+
+    decision = []
+    for t in range(len(tasks)):
+        decision.append(solution.get(str(t), "-1"))
+
+    return time.time() - start, decision, report
+
+
+def serve():
+    reply("READY")
+
+    while True:
+        line = requests.readline()
+        if not line:
+            break
+
+        request = line.decode().split()
+
+        if len(request) == 0:
+            continue
+
+        if request[0] == "BATCH" and len(request) in (4, 5, 6):
+            payload = requests.read(int(request[2]))
+            time_limit = float(request[4]) if len(request) >= 5 else 0
+            mode = request[5] if len(request) == 6 else "TWO_STAGE"
+            try:
+                elapsed, decision, report = solve_batch(request[1], payload, request[3] == "1", time_limit, mode)
+                if decision is None:
+                    reply("NONE " + str(elapsed))
+                elif report is None:
+                    reply("OK " + str(elapsed) + " " + str(len(decision)) + " " + " ".join(decision))
+                else:
+                    reply("OK " + str(elapsed) + " " + str(len(decision)) + " " + " ".join(decision) + " " + report)
+            except Exception as e:
+                traceback.print_exc()
+                reply("ERR " + type(e).__name__ + ": " + str(e).replace("\n", " "))
+
+        elif request[0] == "PING":
+            reply("PONG")
+
+        elif request[0] == "QUIT":
+            reply("BYE")
+            break
+
+        else:
+            reply("ERR unknown request: " + line.decode().strip())
+
+
+if __name__ == '__main__':
+    serve()
@@ -2,6 +2,8 @@ import itertools
 from classes import *
 import copy
 
+# delays and bandwidth tables used with the json files, the binary batch
+# carries the delays computed by the network model of the simulator
 man_prop_delay = 5
 wan_prop_delay = 0
 wan_band_values = {1:20703.973, 2:12023.957, 3:9887.785, 4:8915.775, 5:8259.277, 6:7560.574, 7:7262.140, 8:7155.361, 9:7041.153, 10:6994.595, 
@@ -71,9 +73,13 @@ def return_wlan_band(users_in_ap):
 
 
 def calculate_wlan(task, wlan):
+    if task.wlan_delay is not None:
+        return task.wlan_delay[wlan[task.ap] - 1]
     return ((task.upload_size*8) + (task.download_size*8)) / (return_wlan_band(wlan[task.ap])*3)
 
 def calculate_man(man, mean_task_size_ul, mean_task_size_dl, man_info):
+    if "man_delay" in man_info:
+        return man_info["man_delay"]
 
     avgTaskSize = man_info["avg_download"] * 8
     PoissonMean = man_info["poisson_dl"]
@@ -98,6 +104,8 @@ def calculate_man(man, mean_task_size_ul, mean_task_size_dl, man_info):
 
 
 def calculate_wan(task, wan):
+    if task.wan_delay is not None:
+        return task.wan_delay[wan[task.ap] - 1]
     return (((task.upload_size*8) + (task.download_size*8)) / return_wan_band(wan[task.ap])) + wan_prop_delay
 
 
@@ -0,0 +1,123 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Arrival Predictor
+ *
+ * Description:
+ * LOTOSArrivalPredictor predicts the tasks arriving within the look-ahead
+ * horizon from the last task seen for each mobile device. Periodic
+ * streams repeat their last frame with the period measured between the
+ * last two frames. Other devices send one more task like their last one
+ * when the median interarrival time of their application (poisson mean
+ * in applications.xml) falls within the horizon. Devices silent for two
+ * periods or two mean interarrival times are considered idle. The
+ * predicted tasks are only placeholders: they take part in the model so
+ * that the solver keeps room for them, their decisions are discarded.
+ * All the placeholders of a batch weigh less than one real task, so they
+ * never displace a real task.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+
+public class LOTOSArrivalPredictor {
+	private double horizon; //milliseconds of simulation time
+	private int maxPlaceholders;
+
+	//last task and measured period of the stream of each device
+	private Map<Integer, TaskProperty> lastTasks;
+	private Map<Integer, Double> periods;
+
+	private int numOfBatches;
+	private long numOfPlaceholders;
+
+	public LOTOSArrivalPredictor(double _horizon, int _maxPlaceholders) {
+		horizon = _horizon;
+		maxPlaceholders = _maxPlaceholders;
+		lastTasks = new HashMap<Integer, TaskProperty>();
+		periods = new HashMap<Integer, Double>();
+		numOfBatches = 0;
+		numOfPlaceholders = 0;
+	}
+
+	/*
+	 * records the real tasks of a batch
+	 */
+	public void observe(List<TaskProperty> tasks) {
+		for(TaskProperty task : tasks) {
+			TaskProperty last = lastTasks.get(task.getMobileDeviceId());
+			if(last != null && last.getStartTime() >= task.getStartTime())
+				continue; //retried task
+
+			if(task.isPeriodic() && last != null && last.isPeriodic())
+				periods.put(task.getMobileDeviceId(), task.getStartTime() - last.getStartTime());
+			else if(!task.isPeriodic())
+				periods.remove(task.getMobileDeviceId());
+
+			lastTasks.put(task.getMobileDeviceId(), task);
+		}
+	}
+
+	/*
+	 * returns the placeholder tasks arriving after now and within the
+	 * horizon, the earliest ones first
+	 */
+	public List<TaskProperty> predict(double now) {
+		List<TaskProperty> placeholders = new ArrayList<TaskProperty>();
+
+		for(TaskProperty last : lastTasks.values()) {
+			Double period = periods.get(last.getMobileDeviceId());
+
+			if(period != null && period > 0) {
+				if(now - last.getStartTime() > 2 * period)
+					continue;
+				int count = 0;
+				for(double arrival = last.getStartTime() + period; arrival <= now + horizon && count < maxPlaceholders; arrival += period) {
+					if(arrival > now) {
+						placeholders.add(createPlaceholder(last, arrival));
+						count++;
+					}
+				}
+			}
+			else {
+				double meanInterarrival = SimSettings.getInstance().getTaskLookUpTable()[last.getTaskType()][2];
+				double medianInterarrival = meanInterarrival * Math.log(2);
+				if(meanInterarrival <= 0 || now - last.getStartTime() > 2 * meanInterarrival)
+					continue;
+				if(medianInterarrival <= horizon)
+					placeholders.add(createPlaceholder(last, now + medianInterarrival));
+			}
+		}
+
+		placeholders.sort(Comparator.comparingDouble(TaskProperty::getStartTime));
+		if(placeholders.size() > maxPlaceholders)
+			placeholders = new ArrayList<TaskProperty>(placeholders.subList(0, maxPlaceholders));
+
+		numOfBatches++;
+		numOfPlaceholders += placeholders.size();
+		return placeholders;
+	}
+
+	public int getNumOfBatches() {
+		return numOfBatches;
+	}
+
+	public long getNumOfPlaceholders() {
+		return numOfPlaceholders;
+	}
+
+	private TaskProperty createPlaceholder(TaskProperty last, double arrival) {
+		//the constructor swaps the file sizes
+		return new TaskProperty(arrival, last.getMobileDeviceId(), last.getTaskType(), last.getPesNumber(),
+				last.getLength(), last.getOutputFileSize(), last.getInputFileSize());
+	}
+}
@@ -0,0 +1,401 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Batch
+ *
+ * Description:
+ * LOTOSBatch is the solver independent snapshot of one orchestration
+ * batch. Tasks, VMs and access points are stored as int indexed tables
+ * so that every OffloadSolver sees exactly the same instance.
+ * The network delays of the tasks are taken once from the NetworkModel
+ * and shipped with the snapshot, no backend recomputes them.
+ * The binary snapshot may carry the configurations enumerated in java,
+ * in that case the python worker does not run create_config.
+ * Predicted tasks are marked as placeholders: each one weighs less in
+ * the stage 1 objective than the sum of all others can make up for a
+ * real task, so no backend trades a real task for placeholders.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Vm;
+
+import edu.boun.edgecloudsim.network.NetworkDelayMatrix;
+
+public class LOTOSBatch {
+	public static final int BATCH_VERSION = 4;
+
+	//task table
+	private int[] taskType;
+	private int[] taskUser;
+	private double[] taskUploadSize;
+	private double[] taskDownloadSize;
+	private double[] taskCores;
+	private double[] taskLength;
+	private int[] taskAp;
+	private double[] taskStart;
+	private double[] taskWaitingTime;
+	private double[] taskProcessingEdge;
+	private double[] taskProcessingCloud;
+	private double[] taskRam;
+	private double[] taskDelayLimit;
+	private boolean[] taskPlaceholder;
+	private double placeholderWeight; //stage 1 weight of a placeholder, a real task weighs 1
+
+	//vm table
+	private Vm[] vms;
+	private int[] vmTypes;
+	private double[] vmCpuCapacity;
+	private double[] vmRamCapacity;
+	private int[] vmCores;
+	private double[] vmMips;
+	private int[] vmAp;
+	private boolean[] vmCloud;
+	private double[] vmCostInitialize;
+	private double[] vmCostPerTime;
+	private int[] vmLegacyTasks;
+
+	//access point table
+	private int numOfAps;
+	private int[] apId;
+	private double[] apWlanCapacity;
+	private double[] apWanCapacity;
+	private double manCapacity;
+
+	//man queue model
+	private int devCount;
+	private double poissonDownload;
+	private double poissonUpload;
+	private double avgUploadSize;
+	private double avgDownloadSize;
+	private double manBandwidth;
+
+	//network delays of the tasks
+	private NetworkDelayMatrix delays;
+
+	private double simulationTime;
+
+	public LOTOSBatch(int numOfTasks, int numOfVms, double _simulationTime) {
+		taskType = new int[numOfTasks];
+		taskUser = new int[numOfTasks];
+		taskUploadSize = new double[numOfTasks];
+		taskDownloadSize = new double[numOfTasks];
+		taskCores = new double[numOfTasks];
+		taskLength = new double[numOfTasks];
+		taskAp = new int[numOfTasks];
+		taskStart = new double[numOfTasks];
+		taskWaitingTime = new double[numOfTasks];
+		taskProcessingEdge = new double[numOfTasks];
+		taskProcessingCloud = new double[numOfTasks];
+		taskRam = new double[numOfTasks];
+		taskDelayLimit = new double[numOfTasks];
+		taskPlaceholder = new boolean[numOfTasks];
+		placeholderWeight = 1.0 / (numOfTasks + 1);
+
+		vms = new Vm[numOfVms];
+		vmTypes = new int[numOfVms];
+		vmCpuCapacity = new double[numOfVms];
+		vmRamCapacity = new double[numOfVms];
+		vmCores = new int[numOfVms];
+		vmMips = new double[numOfVms];
+		vmAp = new int[numOfVms];
+		vmCloud = new boolean[numOfVms];
+		vmCostInitialize = new double[numOfVms];
+		vmCostPerTime = new double[numOfVms];
+		vmLegacyTasks = new int[numOfVms];
+
+		numOfAps = 0;
+		apId = new int[numOfVms];
+		apWlanCapacity = new double[numOfVms];
+		apWanCapacity = new double[numOfVms];
+
+		simulationTime = _simulationTime;
+	}
+
+	public void setTask(int task, int user, double uploadSize, double downloadSize, double cores, double length, int ap,
+			double start, double waitingTime, double processingEdge, double processingCloud, double ram, double delayLimit) {
+		taskUser[task] = user;
+		taskUploadSize[task] = uploadSize;
+		taskDownloadSize[task] = downloadSize;
+		taskCores[task] = cores;
+		taskLength[task] = length;
+		taskAp[task] = ap;
+		taskStart[task] = start;
+		taskWaitingTime[task] = waitingTime;
+		taskProcessingEdge[task] = processingEdge;
+		taskProcessingCloud[task] = processingCloud;
+		taskRam[task] = ram;
+		taskDelayLimit[task] = delayLimit;
+	}
+
+	/*
+	 * the task type is only used on the java side (decision cache)
+	 */
+	public void setTaskType(int task, int type) {
+		taskType[task] = type;
+	}
+
+	/*
+	 * marks a predicted task, all the placeholders together weigh less than one real task
+	 */
+	public void setTaskPlaceholder(int task) {
+		taskPlaceholder[task] = true;
+	}
+
+	public void setVm(int vm, Vm _vm, int type, double cpuCapacity, double ramCapacity, int cores, double mips, int ap,
+			boolean cloud, double costInitialize, double costPerTime, int legacyTasks) {
+		vms[vm] = _vm;
+		vmTypes[vm] = type;
+		vmCpuCapacity[vm] = cpuCapacity;
+		vmRamCapacity[vm] = ramCapacity;
+		vmCores[vm] = cores;
+		vmMips[vm] = mips;
+		vmAp[vm] = ap;
+		vmCloud[vm] = cloud;
+		vmCostInitialize[vm] = costInitialize;
+		vmCostPerTime[vm] = costPerTime;
+		vmLegacyTasks[vm] = legacyTasks;
+	}
+
+	/*
+	 * adds an access point, an existing access point is overwritten
+	 */
+	public void setAp(int id, double wlanCapacity, double wanCapacity) {
+		int ap = getApIndex(id);
+		if(ap < 0) {
+			if(numOfAps == apId.length) {
+				apId = Arrays.copyOf(apId, numOfAps * 2 + 1);
+				apWlanCapacity = Arrays.copyOf(apWlanCapacity, numOfAps * 2 + 1);
+				apWanCapacity = Arrays.copyOf(apWanCapacity, numOfAps * 2 + 1);
+			}
+			ap = numOfAps++;
+		}
+		apId[ap] = id;
+		apWlanCapacity[ap] = wlanCapacity;
+		apWanCapacity[ap] = wanCapacity;
+	}
+
+	public void setMan(double _manCapacity, int _devCount, double _poissonDownload, double _poissonUpload,
+			double _avgUploadSize, double _avgDownloadSize, double _manBandwidth) {
+		manCapacity = _manCapacity;
+		devCount = _devCount;
+		poissonDownload = _poissonDownload;
+		poissonUpload = _poissonUpload;
+		avgUploadSize = _avgUploadSize;
+		avgDownloadSize = _avgDownloadSize;
+		manBandwidth = _manBandwidth;
+	}
+
+	public void setDelays(NetworkDelayMatrix _delays) {
+		delays = _delays;
+	}
+
+	/*
+	 * returns the row of the access point or -1 if it has no edge server
+	 */
+	public int getApIndex(int id) {
+		for(int ap=0; ap<numOfAps; ap++) {
+			if(apId[ap] == id)
+				return ap;
+		}
+		return -1;
+	}
+
+	/*
+	 * returns a batch with the given task and VM rows (in that order),
+	 * the access point table and the man link are copied
+	 */
+	public LOTOSBatch subBatch(int[] tasks, int[] _vms) {
+		LOTOSBatch batch = new LOTOSBatch(tasks.length, _vms.length, simulationTime);
+
+		for(int i=0; i<tasks.length; i++) {
+			int task = tasks[i];
+			batch.setTask(i, taskUser[task], taskUploadSize[task], taskDownloadSize[task], taskCores[task], taskLength[task],
+					taskAp[task], taskStart[task], taskWaitingTime[task], taskProcessingEdge[task], taskProcessingCloud[task],
+					taskRam[task], taskDelayLimit[task]);
+			batch.setTaskType(i, taskType[task]);
+			batch.taskPlaceholder[i] = taskPlaceholder[task];
+		}
+		batch.placeholderWeight = placeholderWeight;
+
+		for(int i=0; i<_vms.length; i++) {
+			int vm = _vms[i];
+			batch.setVm(i, vms[vm], vmTypes[vm], vmCpuCapacity[vm], vmRamCapacity[vm], vmCores[vm], vmMips[vm],
+					vmAp[vm], vmCloud[vm], vmCostInitialize[vm], vmCostPerTime[vm], vmLegacyTasks[vm]);
+		}
+
+		for(int ap=0; ap<numOfAps; ap++)
+			batch.setAp(apId[ap], apWlanCapacity[ap], apWanCapacity[ap]);
+		batch.setMan(manCapacity, devCount, poissonDownload, poissonUpload, avgUploadSize, avgDownloadSize, manBandwidth);
+		batch.setDelays(delays.subMatrix(tasks));
+
+		return batch;
+	}
+
+	public int getNumOfTasks() { return taskUser.length; }
+	public int getNumOfVms() { return vms.length; }
+	public int getNumOfAps() { return numOfAps; }
+	public double getSimulationTime() { return simulationTime; }
+
+	public int getTaskType(int task) { return taskType[task]; }
+	public int getTaskUser(int task) { return taskUser[task]; }
+	public double getTaskUploadSize(int task) { return taskUploadSize[task]; }
+	public double getTaskDownloadSize(int task) { return taskDownloadSize[task]; }
+	public double getTaskCores(int task) { return taskCores[task]; }
+	public double getTaskLength(int task) { return taskLength[task]; }
+	public int getTaskAp(int task) { return taskAp[task]; }
+	public double getTaskStart(int task) { return taskStart[task]; }
+	public double getTaskWaitingTime(int task) { return taskWaitingTime[task]; }
+	public double getTaskProcessingEdge(int task) { return taskProcessingEdge[task]; }
+	public double getTaskProcessingCloud(int task) { return taskProcessingCloud[task]; }
+	public double getTaskRam(int task) { return taskRam[task]; }
+	public double getTaskDelayLimit(int task) { return taskDelayLimit[task]; }
+	public boolean isTaskPlaceholder(int task) { return taskPlaceholder[task]; }
+	public double getTaskWeight(int task) { return taskPlaceholder[task] ? placeholderWeight : 1; }
+
+	public Vm getVm(int vm) { return vms[vm]; }
+	public int getVmType(int vm) { return vmTypes[vm]; }
+	public double getVmCpuCapacity(int vm) { return vmCpuCapacity[vm]; }
+	public double getVmRamCapacity(int vm) { return vmRamCapacity[vm]; }
+	public int getVmCores(int vm) { return vmCores[vm]; }
+	public double getVmMips(int vm) { return vmMips[vm]; }
+	public int getVmAp(int vm) { return vmAp[vm]; }
+	public boolean isCloudVm(int vm) { return vmCloud[vm]; }
+	public double getVmCostInitialize(int vm) { return vmCostInitialize[vm]; }
+	public double getVmCostPerTime(int vm) { return vmCostPerTime[vm]; }
+	public int getVmLegacyTasks(int vm) { return vmLegacyTasks[vm]; }
+
+	public int getApId(int ap) { return apId[ap]; }
+	public double getApWlanCapacity(int ap) { return apWlanCapacity[ap]; }
+	public double getApWanCapacity(int ap) { return apWanCapacity[ap]; }
+	public double getManCapacity() { return manCapacity; }
+
+	public int getDevCount() { return devCount; }
+	public double getPoissonDownload() { return poissonDownload; }
+	public double getPoissonUpload() { return poissonUpload; }
+	public double getAvgUploadSize() { return avgUploadSize; }
+	public double getAvgDownloadSize() { return avgDownloadSize; }
+	public double getManBandwidth() { return manBandwidth; }
+
+	public double getTaskWlanDelay(int task, int users) { return delays.getWlanDelay(task, users); }
+	public double getTaskWanDelay(int task, int users) { return delays.getWanDelay(task, users); }
+	public double getManDelay() { return delays.getManDelay(); }
+
+	/*
+	 * binary snapshot read by read_batch of classes.py (big endian)
+	 * configurations can be null if the worker has to enumerate them
+	 */
+	public void writeTo(DataOutputStream out, List<LOTOSConfiguration> configurations) throws IOException {
+		out.writeInt(BATCH_VERSION);
+		out.writeDouble(simulationTime);
+
+		out.writeInt(getNumOfTasks());
+		for(int task=0; task<getNumOfTasks(); task++) {
+			out.writeInt(taskUser[task]);
+			out.writeDouble(taskUploadSize[task]);
+			out.writeDouble(taskDownloadSize[task]);
+			out.writeDouble(taskCores[task]);
+			out.writeDouble(taskLength[task]);
+			out.writeInt(taskAp[task]);
+			out.writeDouble(taskStart[task]);
+			out.writeDouble(taskWaitingTime[task]);
+			out.writeDouble(taskProcessingEdge[task]);
+			out.writeDouble(taskProcessingCloud[task]);
+			out.writeDouble(taskRam[task]);
+			out.writeDouble(taskDelayLimit[task]);
+			out.writeDouble(getTaskWeight(task));
+		}
+
+		out.writeInt(getNumOfVms());
+		for(int vm=0; vm<getNumOfVms(); vm++) {
+			out.writeDouble(vmCpuCapacity[vm]);
+			out.writeDouble(vmRamCapacity[vm]);
+			out.writeInt(vmCores[vm]);
+			out.writeDouble(vmMips[vm]);
+			out.writeInt(vmAp[vm]);
+			out.writeBoolean(vmCloud[vm]);
+			out.writeDouble(vmCostInitialize[vm]);
+			out.writeDouble(vmCostPerTime[vm]);
+			out.writeInt(vmLegacyTasks[vm]);
+		}
+
+		out.writeInt(numOfAps);
+		for(int ap=0; ap<numOfAps; ap++) {
+			out.writeInt(apId[ap]);
+			out.writeDouble(apWlanCapacity[ap]);
+			out.writeDouble(apWanCapacity[ap]);
+		}
+
+		out.writeDouble(manCapacity);
+		out.writeInt(devCount);
+		out.writeDouble(poissonDownload);
+		out.writeDouble(poissonUpload);
+		out.writeDouble(avgUploadSize);
+		out.writeDouble(avgDownloadSize);
+		out.writeDouble(manBandwidth);
+
+		out.writeInt(delays.getMaxUsers());
+		for(int task=0; task<getNumOfTasks(); task++) {
+			for(int users=1; users<=delays.getMaxUsers(); users++)
+				out.writeDouble(delays.getWlanDelay(task, users));
+			for(int users=1; users<=delays.getMaxUsers(); users++)
+				out.writeDouble(delays.getWanDelay(task, users));
+		}
+		out.writeDouble(delays.getManDelay());
+
+		if(configurations == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(configurations.size());
+		for(LOTOSConfiguration configuration : configurations) {
+			out.writeInt(configuration.getVm());
+			out.writeInt(configuration.getNumOfTasks());
+			out.writeDouble(configuration.getCpu());
+			out.writeDouble(configuration.getRam());
+			out.writeInt(configuration.getMan());
+			out.writeBoolean(configuration.usesWan());
+			out.writeInt(configuration.getWlanAps().length);
+
+			for(int i=0; i<configuration.getNumOfTasks(); i++) {
+				out.writeInt(configuration.getTasks()[i]);
+				out.writeDouble(configuration.getProcessingTime()[i]);
+				out.writeDouble(configuration.getCommunicationTime()[i]);
+				out.writeDouble(configuration.getWaitingTime()[i]);
+			}
+
+			for(int i=0; i<configuration.getWlanAps().length; i++) {
+				out.writeInt(apId[configuration.getWlanAps()[i]]);
+				out.writeInt(configuration.getWlanUsers()[i]);
+			}
+		}
+	}
+
+	public byte[] toByteArray() {
+		return toByteArray(null);
+	}
+
+	public byte[] toByteArray(List<LOTOSConfiguration> configurations) {
+		int size = 64 + getNumOfTasks() * 96 + getNumOfVms() * 53 + numOfAps * 20;
+		if(configurations != null)
+			size += configurations.size() * 64;
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(size);
+		try {
+			DataOutputStream out = new DataOutputStream(buffer);
+			writeTo(out, configurations);
+			out.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return buffer.toByteArray();
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Branch and Bound Solver
+ *
+ * Description:
+ * LOTOSBranchAndBoundSolver solves the two stage LOTOS set packing model
+ * inside the JVM. The search picks at most one configuration per VM and
+ * keeps the wlan, wan and man capacities. Solutions are compared first
+ * by the number of accepted tasks (stage 1 of model.py, placeholders
+ * count for their weight) and then by the cost (stage 2 of model.py), which gives the same optimum as solving
+ * stage 2 with the stage 1 objective fixed. The search is stopped when
+ * the solver_time_budget expires and the incumbent is returned.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class LOTOSBranchAndBoundSolver implements OffloadSolver {
+	private static final double COST_TOLERANCE = 1e-12;
+	private static final double WEIGHT_TOLERANCE = 1e-9;
+	private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+	private LOTOSConfigurationGenerator generator;
+
+	//search state
+	private LOTOSBatch batch;
+	private LOTOSConfiguration[][] configurations; //configurations of each VM
+	private double[] maxWeightFrom; //upper bound on the weight accepted by VMs vm..end
+	private double[] minCostFrom; //lower bound on the cost of VMs vm..end
+	private boolean[] taskUsed;
+	private double[] wlanUsed;
+	private double[] wanUsed;
+	private double manUsed;
+	private LOTOSConfiguration[] selected;
+	private LOTOSConfiguration[] bestSelected;
+	private double totalWeight;
+	private double bestWeight;
+	private double bestCost;
+
+	private long numOfNodes;
+	private double timeBudget; //seconds, 0 means no limit
+	private long deadline;
+	private boolean expired;
+	private int numOfExpiredSearches;
+
+	public LOTOSBranchAndBoundSolver() {
+		this(SimSettings.getInstance().getSolverTimeBudget());
+	}
+
+	public LOTOSBranchAndBoundSolver(double _timeBudget) {
+		generator = new LOTOSConfigurationGenerator();
+		timeBudget = _timeBudget;
+		numOfExpiredSearches = 0;
+	}
+
+	@Override
+	public int[] solve(LOTOSBatch _batch) {
+		long _deadline = (timeBudget > 0) ? System.nanoTime() + (long)(timeBudget * 1e9) : 0;
+		return solve(_batch, generator.generate(_batch, _deadline), _deadline);
+	}
+
+	public int[] solve(LOTOSBatch _batch, List<LOTOSConfiguration> columns) {
+		long _deadline = (timeBudget > 0) ? System.nanoTime() + (long)(timeBudget * 1e9) : 0;
+		return solve(_batch, columns, _deadline);
+	}
+
+	/*
+	 * returns null if the budget expired before any task was accepted
+	 */
+	private int[] solve(LOTOSBatch _batch, List<LOTOSConfiguration> columns, long _deadline) {
+		deadline = _deadline;
+		expired = false;
+		batch = _batch;
+		int numOfVms = batch.getNumOfVms();
+
+		//largest and cheapest configurations first so a good incumbent is found early
+		List<List<LOTOSConfiguration>> perVm = new ArrayList<List<LOTOSConfiguration>>();
+		for(int vm=0; vm<numOfVms; vm++)
+			perVm.add(new ArrayList<LOTOSConfiguration>());
+		for(LOTOSConfiguration configuration : columns)
+			perVm.get(configuration.getVm()).add(configuration);
+
+		configurations = new LOTOSConfiguration[numOfVms][];
+		maxWeightFrom = new double[numOfVms + 1];
+		minCostFrom = new double[numOfVms + 1];
+		for(int vm=numOfVms-1; vm>=0; vm--) {
+			List<LOTOSConfiguration> list = perVm.get(vm);
+			list.sort((a, b) -> (a.getWeight() != b.getWeight()) ?
+					Double.compare(b.getWeight(), a.getWeight()) : Double.compare(a.getCost(), b.getCost()));
+			configurations[vm] = list.toArray(new LOTOSConfiguration[list.size()]);
+
+			double maxWeight = 0;
+			double minCost = 0;
+			for(LOTOSConfiguration configuration : configurations[vm]) {
+				maxWeight = Math.max(maxWeight, configuration.getWeight());
+				minCost = Math.min(minCost, configuration.getCost());
+			}
+			maxWeightFrom[vm] = maxWeightFrom[vm + 1] + maxWeight;
+			minCostFrom[vm] = minCostFrom[vm + 1] + minCost;
+		}
+
+		taskUsed = new boolean[batch.getNumOfTasks()];
+		totalWeight = 0;
+		for(int task=0; task<batch.getNumOfTasks(); task++)
+			totalWeight += batch.getTaskWeight(task);
+		wlanUsed = new double[batch.getNumOfAps()];
+		wanUsed = new double[batch.getNumOfAps()];
+		manUsed = 0;
+		selected = new LOTOSConfiguration[numOfVms];
+		bestSelected = new LOTOSConfiguration[numOfVms];
+		bestWeight = 0;
+		bestCost = 0;
+		numOfNodes = 0;
+
+		search(0, 0, 0);
+
+		if(expired) {
+			numOfExpiredSearches++;
+			if(bestWeight == 0)
+				return null;
+		}
+
+		int[] result = new int[batch.getNumOfTasks()];
+		Arrays.fill(result, -1);
+		for(LOTOSConfiguration configuration : bestSelected) {
+			if(configuration != null) {
+				for(int task : configuration.getTasks())
+					result[task] = configuration.getVm();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void shutdown() {
+		if(numOfExpiredSearches > 0)
+			SimLogger.printLine("Branch and bound: " + numOfExpiredSearches + " searches stopped by the time budget");
+	}
+
+	public long getNumOfNodes() {
+		return numOfNodes;
+	}
+
+	private void search(int vm, double acceptedWeight, double cost) {
+		numOfNodes++;
+
+		if(expired || (deadline > 0 && numOfNodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline)) {
+			expired = true;
+			return;
+		}
+
+		if(acceptedWeight > bestWeight + WEIGHT_TOLERANCE ||
+				(acceptedWeight >= bestWeight - WEIGHT_TOLERANCE && cost < bestCost - COST_TOLERANCE)) {
+			bestWeight = acceptedWeight;
+			bestCost = cost;
+			bestSelected = selected.clone();
+		}
+
+		if(vm == configurations.length)
+			return;
+
+		double bound = acceptedWeight + Math.min(maxWeightFrom[vm], totalWeight - acceptedWeight);
+		if(bound < bestWeight - WEIGHT_TOLERANCE)
+			return;
+		if(bound <= bestWeight + WEIGHT_TOLERANCE && cost + minCostFrom[vm] >= bestCost - COST_TOLERANCE)
+			return;
+
+		for(LOTOSConfiguration configuration : configurations[vm]) {
+			if(fits(configuration)) {
+				apply(configuration, 1);
+				selected[vm] = configuration;
+				search(vm + 1, acceptedWeight + configuration.getWeight(), cost + configuration.getCost());
+				selected[vm] = null;
+				apply(configuration, -1);
+			}
+		}
+
+		//the VM receives no task
+		search(vm + 1, acceptedWeight, cost);
+	}
+
+	private boolean fits(LOTOSConfiguration configuration) {
+		for(int task : configuration.getTasks()) {
+			if(taskUsed[task])
+				return false;
+		}
+		if(manUsed + configuration.getMan() > batch.getManCapacity())
+			return false;
+
+		int[] aps = configuration.getWlanAps();
+		int[] users = configuration.getWlanUsers();
+		for(int i=0; i<aps.length; i++) {
+			if(wlanUsed[aps[i]] + users[i] > batch.getApWlanCapacity(aps[i]))
+				return false;
+			if(configuration.usesWan() && wanUsed[aps[i]] + users[i] > batch.getApWanCapacity(aps[i]))
+				return false;
+		}
+		return true;
+	}
+
+	private void apply(LOTOSConfiguration configuration, int sign) {
+		for(int task : configuration.getTasks())
+			taskUsed[task] = (sign > 0);
+		manUsed += sign * configuration.getMan();
+
+		int[] aps = configuration.getWlanAps();
+		int[] users = configuration.getWlanUsers();
+		for(int i=0; i<aps.length; i++) {
+			wlanUsed[aps[i]] += sign * users[i];
+			if(configuration.usesWan())
+				wanUsed[aps[i]] += sign * users[i];
+		}
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Column Generation Solver
+ *
+ * Description:
+ * LOTOSColumnGenerationSolver solves the LOTOS model without listing
+ * every configuration of the batch. It starts from the single task
+ * configurations, solves the LP relaxation of stage 1 and asks each VM
+ * for new configurations with a positive reduced cost. The pricing
+ * grows task subsets with a beam search and evaluates them with the
+ * same processor sharing replay as LOTOSConfigurationGenerator. When no
+ * configuration prices out, the LP solution is rounded to a feasible
+ * decision (price and round). When the solver_time_budget expires the
+ * columns found so far are rounded.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class LOTOSColumnGenerationSolver implements OffloadSolver {
+	private static final int MAX_ITERATIONS = 100;
+	private static final int BEAM_WIDTH = 3;
+	private static final int COLUMNS_PER_VM = 3;
+	private static final double EPSILON = 1e-9;
+
+	private LOTOSConfigurationGenerator generator;
+
+	//restricted master problem
+	private LOTOSBatch batch;
+	private List<LOTOSConfiguration> columns;
+	private Set<String> columnKeys;
+	private double[] dual;
+	private double[] primal;
+
+	private int numOfBatches;
+	private long numOfIterations;
+	private long numOfColumns;
+	private double timeBudget; //seconds, 0 means no limit
+	private int numOfExpiredBatches;
+
+	public LOTOSColumnGenerationSolver() {
+		generator = new LOTOSConfigurationGenerator();
+		timeBudget = SimSettings.getInstance().getSolverTimeBudget();
+		numOfExpiredBatches = 0;
+		numOfBatches = 0;
+		numOfIterations = 0;
+		numOfColumns = 0;
+	}
+
+	@Override
+	public int[] solve(LOTOSBatch _batch) {
+		long deadline = System.nanoTime() + (long)(timeBudget * 1e9);
+		boolean expired = false;
+		batch = _batch;
+		columns = new ArrayList<LOTOSConfiguration>();
+		columnKeys = new HashSet<String>();
+		double manDelay = generator.calculateManDelay(batch);
+
+		//initial columns: every task alone on every VM
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			for(int task=0; task<batch.getNumOfTasks(); task++)
+				addColumn(generator.createConfiguration(batch, vm, new int[] {task}, manDelay));
+		}
+
+		int iteration = 0;
+		while(true) {
+			solveMaster();
+			if(++iteration > MAX_ITERATIONS)
+				break;
+
+			int numOfNewColumns = 0;
+			for(int vm=0; vm<batch.getNumOfVms() && !expired; vm++) {
+				for(LOTOSConfiguration configuration : price(vm, manDelay)) {
+					if(addColumn(configuration))
+						numOfNewColumns++;
+				}
+				expired = timeBudget > 0 && System.nanoTime() > deadline;
+			}
+			if(expired) {
+				//the columns priced so far are not in the LP solution yet
+				numOfExpiredBatches++;
+				solveMaster();
+				break;
+			}
+			if(numOfNewColumns == 0)
+				break;
+		}
+
+		numOfBatches++;
+		numOfIterations += iteration;
+		numOfColumns += columns.size();
+
+		return round();
+	}
+
+	@Override
+	public void shutdown() {
+		if(numOfBatches > 0) {
+			SimLogger.printLine("Column generation: " + numOfBatches + " batches, " +
+					String.format("%.1f", (double)numOfIterations / numOfBatches) + " iterations and " +
+					String.format("%.1f", (double)numOfColumns / numOfBatches) + " columns per batch, " +
+					numOfExpiredBatches + " stopped by the time budget");
+		}
+	}
+
+	public List<LOTOSConfiguration> getColumns() {
+		return columns;
+	}
+
+	private boolean addColumn(LOTOSConfiguration configuration) {
+		if(configuration == null)
+			return false;
+		if(!columnKeys.add(configuration.getVm() + Arrays.toString(configuration.getTasks())))
+			return false;
+		columns.add(configuration);
+		return true;
+	}
+
+	/*
+	 * rows of the master problem: one per task, one per VM, the wlan and
+	 * wan capacity of each access point and the man capacity
+	 */
+	private int getNumOfRows() {
+		return batch.getNumOfTasks() + batch.getNumOfVms() + 2 * batch.getNumOfAps() + 1;
+	}
+
+	private double[] getColumn(LOTOSConfiguration configuration) {
+		double[] column = new double[getNumOfRows()];
+		int wlanRow = batch.getNumOfTasks() + batch.getNumOfVms();
+		int wanRow = wlanRow + batch.getNumOfAps();
+
+		for(int task : configuration.getTasks())
+			column[task] = 1;
+		column[batch.getNumOfTasks() + configuration.getVm()] = 1;
+
+		int[] aps = configuration.getWlanAps();
+		int[] users = configuration.getWlanUsers();
+		for(int i=0; i<aps.length; i++) {
+			column[wlanRow + aps[i]] = users[i];
+			if(configuration.usesWan())
+				column[wanRow + aps[i]] = users[i];
+		}
+		column[column.length - 1] = configuration.getMan();
+		return column;
+	}
+
+	private double[] getCapacities() {
+		double[] rhs = new double[getNumOfRows()];
+		int wlanRow = batch.getNumOfTasks() + batch.getNumOfVms();
+		int wanRow = wlanRow + batch.getNumOfAps();
+
+		Arrays.fill(rhs, 0, wlanRow, 1);
+		for(int ap=0; ap<batch.getNumOfAps(); ap++) {
+			rhs[wlanRow + ap] = Math.max(0, batch.getApWlanCapacity(ap));
+			rhs[wanRow + ap] = Math.max(0, batch.getApWanCapacity(ap));
+		}
+		rhs[rhs.length - 1] = Math.max(0, batch.getManCapacity());
+		return rhs;
+	}
+
+	private double getReducedCost(LOTOSConfiguration configuration) {
+		double[] column = getColumn(configuration);
+		double reducedCost = configuration.getWeight();
+		for(int row=0; row<column.length; row++)
+			reducedCost -= dual[row] * column[row];
+		return reducedCost;
+	}
+
+	/*
+	 * primal simplex on the LP relaxation of stage 1, the slack basis is
+	 * feasible since all capacities are non negative. Bland's rule avoids
+	 * cycling on the degenerate set packing rows
+	 */
+	private void solveMaster() {
+		int m = getNumOfRows();
+		int n = columns.size();
+		double[][] tableau = new double[m + 1][n + m + 1];
+		int[] basis = new int[m];
+
+		double[] rhs = getCapacities();
+		for(int j=0; j<n; j++) {
+			double[] column = getColumn(columns.get(j));
+			for(int row=0; row<m; row++)
+				tableau[row][j] = column[row];
+			tableau[m][j] = -columns.get(j).getWeight();
+		}
+		for(int row=0; row<m; row++) {
+			tableau[row][n + row] = 1;
+			tableau[row][n + m] = rhs[row];
+			basis[row] = n + row;
+		}
+
+		while(true) {
+			int entering = -1;
+			for(int j=0; j<n+m && entering < 0; j++) {
+				if(tableau[m][j] < -EPSILON)
+					entering = j;
+			}
+			if(entering < 0)
+				break;
+
+			int leaving = -1;
+			double ratio = Double.MAX_VALUE;
+			for(int row=0; row<m; row++) {
+				if(tableau[row][entering] > EPSILON) {
+					double value = tableau[row][n + m] / tableau[row][entering];
+					if(value < ratio - EPSILON || (value < ratio + EPSILON && leaving >= 0 && basis[row] < basis[leaving])) {
+						ratio = value;
+						leaving = row;
+					}
+				}
+			}
+			if(leaving < 0)
+				break; //cannot happen, every column uses a task row
+
+			double pivot = tableau[leaving][entering];
+			for(int j=0; j<=n+m; j++)
+				tableau[leaving][j] /= pivot;
+			for(int row=0; row<=m; row++) {
+				double factor = tableau[row][entering];
+				if(row != leaving && factor != 0) {
+					for(int j=0; j<=n+m; j++)
+						tableau[row][j] -= factor * tableau[leaving][j];
+				}
+			}
+			basis[leaving] = entering;
+		}
+
+		dual = new double[m];
+		for(int row=0; row<m; row++)
+			dual[row] = tableau[m][n + row];
+
+		primal = new double[n];
+		for(int row=0; row<m; row++) {
+			if(basis[row] < n)
+				primal[basis[row]] = tableau[row][n + m];
+		}
+	}
+
+	/*
+	 * beam search over the task subsets of the VM, returns the best
+	 * configurations with a positive reduced cost
+	 */
+	private List<LOTOSConfiguration> price(int vm, double manDelay) {
+		List<LOTOSConfiguration> found = new ArrayList<LOTOSConfiguration>();
+		Set<String> visited = new HashSet<String>();
+
+		List<int[]> level = new ArrayList<int[]>();
+		level.add(new int[0]);
+
+		while(!level.isEmpty()) {
+			List<LOTOSConfiguration> candidates = new ArrayList<LOTOSConfiguration>();
+			for(int[] parent : level) {
+				for(int task=0; task<batch.getNumOfTasks(); task++) {
+					//a task whose dual is its weight or more cannot improve the column
+					if(dual[task] >= batch.getTaskWeight(task) - EPSILON || Arrays.binarySearch(parent, task) >= 0)
+						continue;
+
+					int[] tasks = Arrays.copyOf(parent, parent.length + 1);
+					tasks[parent.length] = task;
+					Arrays.sort(tasks);
+					if(!visited.add(Arrays.toString(tasks)))
+						continue;
+
+					LOTOSConfiguration configuration = generator.createConfiguration(batch, vm, tasks, manDelay);
+					if(configuration != null)
+						candidates.add(configuration);
+				}
+			}
+
+			candidates.sort((a, b) -> Double.compare(getReducedCost(b), getReducedCost(a)));
+			level = new ArrayList<int[]>();
+			for(int i=0; i<candidates.size() && i<BEAM_WIDTH; i++) {
+				level.add(candidates.get(i).getTasks());
+				if(getReducedCost(candidates.get(i)) > EPSILON)
+					found.add(candidates.get(i));
+			}
+		}
+
+		found.sort((a, b) -> Double.compare(getReducedCost(b), getReducedCost(a)));
+		return (found.size() > COLUMNS_PER_VM) ? found.subList(0, COLUMNS_PER_VM) : found;
+	}
+
+	/*
+	 * picks the columns with the largest LP value first, then fills the
+	 * remaining VMs with the largest and cheapest columns that still fit
+	 */
+	private int[] round() {
+		Integer[] order = new Integer[columns.size()];
+		for(int j=0; j<order.length; j++)
+			order[j] = j;
+		Arrays.sort(order, (a, b) -> {
+			LOTOSConfiguration ca = columns.get(a);
+			LOTOSConfiguration cb = columns.get(b);
+			if(Math.abs(primal[a] - primal[b]) > EPSILON)
+				return Double.compare(primal[b], primal[a]);
+			if(ca.getWeight() != cb.getWeight())
+				return Double.compare(cb.getWeight(), ca.getWeight());
+			return Double.compare(ca.getCost(), cb.getCost());
+		});
+
+		double[] rhs = getCapacities();
+		double[] used = new double[rhs.length];
+		int[] result = new int[batch.getNumOfTasks()];
+		Arrays.fill(result, -1);
+
+		for(int j : order) {
+			double[] column = getColumn(columns.get(j));
+			boolean fits = true;
+			for(int row=0; row<column.length && fits; row++)
+				fits = used[row] + column[row] <= rhs[row] + EPSILON;
+			if(!fits)
+				continue;
+
+			for(int row=0; row<column.length; row++)
+				used[row] += column[row];
+			for(int task : columns.get(j).getTasks())
+				result[task] = columns.get(j).getVm();
+		}
+		return result;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Comparing Solver
+ *
+ * Description:
+ * LOTOSComparingSolver runs two OffloadSolver backends on every batch,
+ * keeps the decision of the reference backend and reports the batches
+ * where the other backend accepts a different number of tasks, reaches
+ * a different cost or assigns the tasks differently.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class LOTOSComparingSolver implements OffloadSolver {
+	private static final double COST_TOLERANCE = 1e-9;
+
+	private OffloadSolver reference;
+	private OffloadSolver candidate;
+	private LOTOSConfigurationGenerator generator;
+
+	private int numOfBatches;
+	private int numOfAcceptedMismatches;
+	private int numOfCostMismatches;
+	private int numOfAssignmentMismatches;
+	private int numOfIncompleteBatches;
+
+	public LOTOSComparingSolver(OffloadSolver _reference, OffloadSolver _candidate) {
+		reference = _reference;
+		candidate = _candidate;
+		generator = new LOTOSConfigurationGenerator();
+	}
+
+	@Override
+	public int[] solve(LOTOSBatch batch) {
+		int[] referenceResult = reference.solve(batch);
+		int[] candidateResult = candidate.solve(batch);
+		numOfBatches++;
+
+		//a backend without decision is not compared
+		if(referenceResult == null || candidateResult == null) {
+			numOfIncompleteBatches++;
+			return referenceResult;
+		}
+
+		int referenceAccepted = countAccepted(referenceResult);
+		int candidateAccepted = countAccepted(candidateResult);
+		double referenceCost = cost(batch, referenceResult);
+		double candidateCost = cost(batch, candidateResult);
+
+		if(referenceAccepted != candidateAccepted) {
+			numOfAcceptedMismatches++;
+			SimLogger.printLine("Batch " + numOfBatches + ": accepted tasks " + referenceAccepted + " vs " + candidateAccepted);
+		}
+		else if(Double.isNaN(referenceCost) != Double.isNaN(candidateCost) ||
+				Math.abs(referenceCost - candidateCost) > COST_TOLERANCE * Math.max(1, Math.abs(referenceCost))) {
+			numOfCostMismatches++;
+			SimLogger.printLine("Batch " + numOfBatches + ": cost " + referenceCost + " vs " + candidateCost);
+		}
+
+		if(!Arrays.equals(referenceResult, candidateResult))
+			numOfAssignmentMismatches++;
+
+		return referenceResult;
+	}
+
+	@Override
+	public void shutdown() {
+		reference.shutdown();
+		candidate.shutdown();
+
+		if(numOfBatches > 0) {
+			SimLogger.printLine("Solver comparison: " + numOfBatches + " batches, " +
+					numOfAcceptedMismatches + " with different accepted tasks, " +
+					numOfCostMismatches + " with different cost, " +
+					numOfAssignmentMismatches + " with different assignment, " +
+					numOfIncompleteBatches + " without decision");
+		}
+	}
+
+	private int countAccepted(int[] result) {
+		int accepted = 0;
+		for(int vm : result) {
+			if(vm >= 0)
+				accepted++;
+		}
+		return accepted;
+	}
+
+	/*
+	 * stage 2 cost of the decision, NaN if a VM set is not a valid configuration
+	 */
+	private double cost(LOTOSBatch batch, int[] result) {
+		double total = 0;
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			List<Integer> tasks = new ArrayList<Integer>();
+			for(int task=0; task<result.length; task++) {
+				if(result[task] == vm)
+					tasks.add(task);
+			}
+			if(tasks.isEmpty())
+				continue;
+
+			LOTOSConfiguration configuration = generator.createConfiguration(batch, vm,
+					tasks.stream().mapToInt(Integer::intValue).toArray());
+			if(configuration == null)
+				return Double.NaN;
+			total += configuration.getCost();
+		}
+		return total;
+	}
+}
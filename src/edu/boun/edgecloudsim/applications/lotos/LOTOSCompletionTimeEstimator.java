@@ -0,0 +1,275 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Completion Time Estimator
+ *
+ * Description:
+ * LOTOSCompletionTimeEstimator replays the processor sharing execution
+ * of a task subset on a VM (algorithm1 and algorithm2 of tools.py) and
+ * gives the finish time of each task with the cpu and ram peaks. The
+ * replay works on primitive workspace arrays that are reused from one
+ * subset to the next, so it does not allocate.
+ *
+ * The state of the replay right after the last arrival only depends on
+ * the tasks arrived so far. It can be saved in a Prefix, a subset made
+ * of the prefix and one more task arriving after all of them is then
+ * replayed from that state instead of from the first arrival. The result
+ * is the same as a full replay, the same operations run in the same
+ * order.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.Arrays;
+
+public class LOTOSCompletionTimeEstimator {
+	/*
+	 * replay state of a task subset after its last arrival
+	 */
+	public static class Prefix {
+		private int[] tasks;
+		private double[] remaining;
+		private double[] finish;
+		private int[] concurrent;
+		private double current;
+		private double cpuPeak;
+		private double ramPeak;
+		private double lastStart;
+	}
+
+	private LOTOSBatch batch;
+	private boolean cloud;
+	private double cores;
+	private double mips;
+	private int legacyTasks;
+
+	//workspace indexed by the position of the task in the subset
+	private int[] taskOf;
+	private double[] remaining;
+	private double[] finish;
+	private int[] order;
+	private int[] concurrent;
+	private int numOfConcurrent;
+	private int size;
+	private double current;
+	private double cpuPeak;
+	private double ramPeak;
+
+	public LOTOSCompletionTimeEstimator() {
+		ensureCapacity(16);
+	}
+
+	/*
+	 * selects the batch and the VM of the next replays
+	 */
+	public void reset(LOTOSBatch _batch, int vm) {
+		batch = _batch;
+		cloud = batch.isCloudVm(vm);
+		cores = batch.getVmCores(vm);
+		mips = batch.getVmMips(vm);
+		legacyTasks = batch.getVmLegacyTasks(vm);
+		ensureCapacity(batch.getNumOfTasks());
+	}
+
+	/*
+	 * replays the tasks from the first arrival, the state after the last
+	 * arrival is saved in memo unless it is null
+	 */
+	public void replay(int[] tasks, Prefix memo) {
+		size = tasks.length;
+		ensureCapacity(size);
+		for(int i=0; i<size; i++) {
+			taskOf[i] = tasks[i];
+			remaining[i] = batch.getTaskLength(tasks[i]);
+			finish[i] = 0;
+		}
+
+		//stable insertion sort of the positions by arrival time
+		for(int i=0; i<size; i++) {
+			int position = order[i] = i;
+			double start = batch.getTaskStart(tasks[position]);
+			int j = i - 1;
+			while(j >= 0 && batch.getTaskStart(taskOf[order[j]]) > start) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = position;
+		}
+
+		current = batch.getTaskStart(taskOf[order[0]]);
+		cpuPeak = 0;
+		ramPeak = 0;
+		numOfConcurrent = 0;
+		concurrent[numOfConcurrent++] = order[0];
+
+		for(int k=1; k<size; k++)
+			arrive(order[k]);
+
+		if(memo != null)
+			save(memo, batch.getTaskStart(taskOf[order[size - 1]]));
+		drain();
+	}
+
+	/*
+	 * returns true if the task arrives after all the tasks of the prefix
+	 */
+	public boolean canExtend(Prefix prefix, int task) {
+		return batch.getTaskStart(task) >= prefix.lastStart;
+	}
+
+	/*
+	 * replays the tasks of the prefix followed by the task from the saved
+	 * state, canExtend must hold. the new state is saved in memo unless it
+	 * is null
+	 */
+	public void extend(Prefix prefix, int task, Prefix memo) {
+		size = prefix.tasks.length + 1;
+		ensureCapacity(size);
+		System.arraycopy(prefix.tasks, 0, taskOf, 0, size - 1);
+		System.arraycopy(prefix.remaining, 0, remaining, 0, size - 1);
+		System.arraycopy(prefix.finish, 0, finish, 0, size - 1);
+		System.arraycopy(prefix.concurrent, 0, concurrent, 0, prefix.concurrent.length);
+		numOfConcurrent = prefix.concurrent.length;
+		current = prefix.current;
+		cpuPeak = prefix.cpuPeak;
+		ramPeak = prefix.ramPeak;
+
+		taskOf[size - 1] = task;
+		remaining[size - 1] = batch.getTaskLength(task);
+		finish[size - 1] = 0;
+
+		arrive(size - 1);
+
+		if(memo != null)
+			save(memo, batch.getTaskStart(task));
+		drain();
+	}
+
+	/*
+	 * finish time of the task at the given position of the last subset
+	 */
+	public double getFinishTime(int position) {
+		return finish[position];
+	}
+
+	public double getCpuPeak() {
+		return cpuPeak;
+	}
+
+	public double getRamPeak() {
+		return (legacyTasks == 0) ? ramPeak + LOTOSConfigurationGenerator.LEGACY_RAM : ramPeak;
+	}
+
+	/*
+	 * runs the tasks until the task at the position arrives and adds it
+	 * to the concurrent tasks (loop of algorithm1)
+	 */
+	private void arrive(int position) {
+		double next = batch.getTaskStart(taskOf[position]);
+
+		int lowest = lowestWorkload();
+		double cpt = cores / (numOfConcurrent + legacyTasks);
+		double capacity = cpt / Math.max(cpt, batch.getTaskCores(taskOf[lowest])) * mips;
+		double betta = remaining[lowest] / capacity;
+
+		while(numOfConcurrent > 0 && current + betta < next) {
+			current = advance(betta, cpt);
+
+			if(numOfConcurrent > 0) {
+				lowest = lowestWorkload();
+				cpt = cores / (numOfConcurrent + legacyTasks);
+				capacity = cpt / Math.max(cpt, batch.getTaskCores(taskOf[lowest])) * mips;
+				betta = remaining[lowest] / capacity;
+			}
+		}
+
+		if(numOfConcurrent > 0)
+			current = advance(next - current, cpt);
+
+		if(current < next)
+			current = next;
+
+		concurrent[numOfConcurrent++] = position;
+	}
+
+	/*
+	 * runs the concurrent tasks until all of them are finished
+	 */
+	private void drain() {
+		while(numOfConcurrent > 0) {
+			int lowest = lowestWorkload();
+			double cpt = cores / (numOfConcurrent + legacyTasks);
+			double capacity = cpt / Math.max(cpt, batch.getTaskCores(taskOf[lowest])) * mips;
+
+			current = advance(remaining[lowest] / capacity, cpt);
+		}
+	}
+
+	/*
+	 * advances the replay by delta seconds (algorithm2 of tools.py)
+	 */
+	private double advance(double delta, double cpt) {
+		double cpu = 0;
+		double ram = 0;
+		for(int t=0; t<numOfConcurrent; t++) {
+			int task = taskOf[concurrent[t]];
+			cpu += cloud ? batch.getTaskProcessingCloud(task) : batch.getTaskProcessingEdge(task);
+			ram += batch.getTaskRam(task);
+		}
+
+		//finished tasks leave the concurrent list, the others keep their order
+		int kept = 0;
+		for(int t=0; t<numOfConcurrent; t++) {
+			int i = concurrent[t];
+			double capacity = cpt / Math.max(cpt, batch.getTaskCores(taskOf[i])) * mips;
+
+			if(LOTOSConfigurationGenerator.round4(delta * capacity) >= LOTOSConfigurationGenerator.round4(remaining[i])) {
+				finish[i] = current + LOTOSConfigurationGenerator.round4(remaining[i]) / LOTOSConfigurationGenerator.round4(capacity);
+			}
+			else {
+				remaining[i] = LOTOSConfigurationGenerator.round4(remaining[i] - delta * capacity);
+				concurrent[kept++] = i;
+			}
+		}
+		numOfConcurrent = kept;
+
+		if(cpu > cpuPeak)
+			cpuPeak = cpu;
+		if(ram > ramPeak)
+			ramPeak = ram;
+
+		return current + delta;
+	}
+
+	private int lowestWorkload() {
+		int lowest = concurrent[0];
+		for(int t=0; t<numOfConcurrent; t++) {
+			int i = concurrent[t];
+			if(batch.getTaskCores(taskOf[i]) * remaining[i] < batch.getTaskCores(taskOf[lowest]) * remaining[lowest])
+				lowest = i;
+		}
+		return lowest;
+	}
+
+	private void save(Prefix memo, double lastStart) {
+		memo.tasks = Arrays.copyOf(taskOf, size);
+		memo.remaining = Arrays.copyOf(remaining, size);
+		memo.finish = Arrays.copyOf(finish, size);
+		memo.concurrent = Arrays.copyOf(concurrent, numOfConcurrent);
+		memo.current = current;
+		memo.cpuPeak = cpuPeak;
+		memo.ramPeak = ramPeak;
+		memo.lastStart = lastStart;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(taskOf != null && taskOf.length >= capacity)
+			return;
+		taskOf = new int[capacity];
+		remaining = new double[capacity];
+		finish = new double[capacity];
+		order = new int[capacity];
+		concurrent = new int[capacity];
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Configuration
+ *
+ * Description:
+ * LOTOSConfiguration is one column of the LOTOS set packing model:
+ * a subset of the batch tasks served together by a single VM, with
+ * the resources it consumes and the times estimated for each task.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+public class LOTOSConfiguration {
+	private int vm;
+	private int[] tasks;
+	private double cpu;
+	private double ram;
+	private int[] wlanAps; //rows of the batch access point table
+	private int[] wlanUsers; //distinct users of the configuration on each access point
+	private boolean wan;
+	private int man;
+	private double[] processingTime;
+	private double[] communicationTime;
+	private double[] waitingTime;
+	private double cost;
+	private double weight; //objective of the first stage
+
+	public LOTOSConfiguration(int _vm, int[] _tasks, double _cpu, double _ram, int[] _wlanAps, int[] _wlanUsers,
+			boolean _wan, int _man, double[] _processingTime, double[] _communicationTime, double[] _waitingTime,
+			double costInitialize, double costPerTime, double _weight) {
+		vm = _vm;
+		tasks = _tasks;
+		cpu = _cpu;
+		ram = _ram;
+		wlanAps = _wlanAps;
+		wlanUsers = _wlanUsers;
+		wan = _wan;
+		man = _man;
+		processingTime = _processingTime;
+		communicationTime = _communicationTime;
+		waitingTime = _waitingTime;
+		weight = _weight;
+
+		//objective of the second stage
+		cost = costInitialize;
+		for(int i=0; i<tasks.length; i++)
+			cost += costPerTime * (processingTime[i] + communicationTime[i]);
+	}
+
+	/*
+	 * same configuration on an identical VM
+	 */
+	public LOTOSConfiguration copyForVm(int _vm) {
+		LOTOSConfiguration copy = new LOTOSConfiguration(_vm, tasks, cpu, ram, wlanAps, wlanUsers, wan, man,
+				processingTime, communicationTime, waitingTime, 0, 0, weight);
+		copy.cost = cost;
+		return copy;
+	}
+
+	public int getVm() { return vm; }
+	public int[] getTasks() { return tasks; }
+	public int getNumOfTasks() { return tasks.length; }
+	public double getCpu() { return cpu; }
+	public double getRam() { return ram; }
+	public int[] getWlanAps() { return wlanAps; }
+	public int[] getWlanUsers() { return wlanUsers; }
+
+	/*
+	 * cloud configurations also use the wan link of the access points
+	 */
+	public boolean usesWan() { return wan; }
+	public int getMan() { return man; }
+	public double[] getProcessingTime() { return processingTime; }
+	public double[] getCommunicationTime() { return communicationTime; }
+	public double[] getWaitingTime() { return waitingTime; }
+	public double getCost() { return cost; }
+
+	/*
+	 * accepted tasks, placeholders count for a fraction of a task
+	 */
+	public double getWeight() { return weight; }
+}
@@ -0,0 +1,375 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Configuration Generator
+ *
+ * Description:
+ * LOTOSConfigurationGenerator builds the configurations of the LOTOS
+ * model inside the JVM. Each configuration follows create_config.py and
+ * tools.py step by step (processor sharing replay and the feasibility
+ * filters) with the network delays shipped in the batch, so the java and
+ * python backends solve the same instance.
+ *
+ * Instead of the full power set of the batch, task subsets are grown one
+ * task at a time and a subset is only evaluated if all its subsets with
+ * one task less are feasible. Adding a task to a VM never shortens the
+ * other tasks nor lowers the cpu/ram peaks, so supersets of infeasible
+ * subsets are never built. Configurations of identical VMs are computed
+ * once, and the copies that only permute tasks among identical VMs are
+ * dropped as dominated. A subset whose last task arrives after the other
+ * ones resumes the processor sharing replay of its parent subset
+ * (LOTOSCompletionTimeEstimator) instead of replaying it from the start.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class LOTOSConfigurationGenerator {
+	public static final double LEGACY_RAM = 1300;
+
+	public static final int MAX_MASK_TASKS = 63;
+
+	//above this value the scaled value may not hold the fraction digits
+	private static final double ROUND4_EXACT_LIMIT = 1e11;
+
+	private long numOfEvaluations;
+	private LOTOSCompletionTimeEstimator estimator = new LOTOSCompletionTimeEstimator();
+
+	/*
+	 * returns the feasible, non dominated configurations of every VM
+	 */
+	public List<LOTOSConfiguration> generate(LOTOSBatch batch) {
+		return generate(batch, 0);
+	}
+
+	/*
+	 * stops growing the subsets at the deadline (System.nanoTime, 0 means
+	 * no limit), the configurations found so far are returned
+	 */
+	public List<LOTOSConfiguration> generate(LOTOSBatch batch, long deadline) {
+		List<LOTOSConfiguration> configurations = new ArrayList<LOTOSConfiguration>();
+		double manDelay = calculateManDelay(batch);
+
+		List<List<LOTOSConfiguration>> generated = new ArrayList<List<LOTOSConfiguration>>();
+		int[] representative = new int[batch.getNumOfVms()];
+		int[] position = new int[batch.getNumOfVms()];
+
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			representative[vm] = vm;
+			position[vm] = 0;
+			for(int other=0; other<vm; other++) {
+				if(representative[other] == other && isEquivalent(batch, vm, other)) {
+					representative[vm] = other;
+					break;
+				}
+			}
+			for(int other=0; other<vm; other++) {
+				if(representative[other] == representative[vm])
+					position[vm]++;
+			}
+
+			if(representative[vm] == vm)
+				generated.add(enumerate(batch, vm, manDelay, deadline));
+			else
+				generated.add(null);
+
+			//the k-th of a group of identical VMs only needs subsets starting at task k or later
+			for(LOTOSConfiguration configuration : generated.get(representative[vm])) {
+				if(configuration.getTasks()[0] >= position[vm])
+					configurations.add((representative[vm] == vm) ? configuration : configuration.copyForVm(vm));
+			}
+		}
+		return configurations;
+	}
+
+	/*
+	 * number of processor sharing replays done by this generator
+	 */
+	public long getNumOfEvaluations() {
+		return numOfEvaluations;
+	}
+
+	/*
+	 * grows the task subsets of the VM one size at a time, in the same
+	 * order as generate_combinations. a subset is only evaluated if all
+	 * its subsets of the previous size are feasible
+	 */
+	private List<LOTOSConfiguration> enumerate(LOTOSBatch batch, int vm, double manDelay, long deadline) {
+		List<LOTOSConfiguration> configurations = new ArrayList<LOTOSConfiguration>();
+		boolean useMasks = batch.getNumOfTasks() <= MAX_MASK_TASKS;
+
+		List<LOTOSConfiguration> level = new ArrayList<LOTOSConfiguration>();
+		List<LOTOSCompletionTimeEstimator.Prefix> levelPrefixes = new ArrayList<LOTOSCompletionTimeEstimator.Prefix>();
+		Set<Long> levelMasks = new HashSet<Long>();
+		for(int task=0; task<batch.getNumOfTasks(); task++) {
+			LOTOSCompletionTimeEstimator.Prefix prefix = new LOTOSCompletionTimeEstimator.Prefix();
+			LOTOSConfiguration configuration = createConfiguration(batch, vm, new int[] {task}, manDelay, null, prefix);
+			if(configuration != null) {
+				level.add(configuration);
+				levelPrefixes.add(prefix);
+				levelMasks.add(1L << task);
+			}
+		}
+
+		while(!level.isEmpty()) {
+			configurations.addAll(level);
+			if(deadline > 0 && System.nanoTime() > deadline)
+				break;
+
+			List<LOTOSConfiguration> nextLevel = new ArrayList<LOTOSConfiguration>();
+			List<LOTOSCompletionTimeEstimator.Prefix> nextPrefixes = new ArrayList<LOTOSCompletionTimeEstimator.Prefix>();
+			Set<Long> nextMasks = new HashSet<Long>();
+			for(int p=0; p<level.size(); p++) {
+				int[] prefix = level.get(p).getTasks();
+				long prefixMask = useMasks ? mask(prefix) : 0L;
+
+				for(int task=prefix[prefix.length-1] + 1; task<batch.getNumOfTasks(); task++) {
+					if(useMasks) {
+						//every subset with one task less must be feasible
+						long mask = prefixMask | (1L << task);
+						boolean candidate = true;
+						for(int i=0; i<prefix.length && candidate; i++)
+							candidate = levelMasks.contains(mask & ~(1L << prefix[i]));
+						if(!candidate)
+							continue;
+					}
+
+					int[] tasks = Arrays.copyOf(prefix, prefix.length + 1);
+					tasks[prefix.length] = task;
+					//the last task of the batch cannot be followed by another one
+					LOTOSCompletionTimeEstimator.Prefix memo = (task + 1 < batch.getNumOfTasks()) ? new LOTOSCompletionTimeEstimator.Prefix() : null;
+					LOTOSConfiguration configuration = createConfiguration(batch, vm, tasks, manDelay, levelPrefixes.get(p), memo);
+					if(configuration != null) {
+						nextLevel.add(configuration);
+						nextPrefixes.add(memo);
+						if(useMasks)
+							nextMasks.add(prefixMask | (1L << task));
+					}
+				}
+			}
+			level = nextLevel;
+			levelPrefixes = nextPrefixes;
+			levelMasks = nextMasks;
+		}
+		return configurations;
+	}
+
+	private static long mask(int[] tasks) {
+		long mask = 0L;
+		for(int task : tasks)
+			mask |= 1L << task;
+		return mask;
+	}
+
+	/*
+	 * identical VMs produce identical configurations
+	 */
+	private boolean isEquivalent(LOTOSBatch batch, int vm, int other) {
+		return batch.isCloudVm(vm) == batch.isCloudVm(other) &&
+				batch.getVmAp(vm) == batch.getVmAp(other) &&
+				batch.getVmCpuCapacity(vm) == batch.getVmCpuCapacity(other) &&
+				batch.getVmRamCapacity(vm) == batch.getVmRamCapacity(other) &&
+				batch.getVmCores(vm) == batch.getVmCores(other) &&
+				batch.getVmMips(vm) == batch.getVmMips(other) &&
+				batch.getVmCostInitialize(vm) == batch.getVmCostInitialize(other) &&
+				batch.getVmCostPerTime(vm) == batch.getVmCostPerTime(other) &&
+				batch.getVmLegacyTasks(vm) == batch.getVmLegacyTasks(other);
+	}
+
+	public LOTOSConfiguration createConfiguration(LOTOSBatch batch, int vm, int[] tasks) {
+		return createConfiguration(batch, vm, tasks, calculateManDelay(batch));
+	}
+
+	/*
+	 * returns the configuration or null if it breaks the cpu, ram,
+	 * delay or simulation time limits (config_data of create_config.py)
+	 */
+	public LOTOSConfiguration createConfiguration(LOTOSBatch batch, int vm, int[] tasks, double manDelay) {
+		return createConfiguration(batch, vm, tasks, manDelay, null, null);
+	}
+
+	/*
+	 * the replay resumes from the parent state (the tasks without the last
+	 * one) when possible, the replay state of the tasks is saved in memo
+	 * unless it is null
+	 */
+	private LOTOSConfiguration createConfiguration(LOTOSBatch batch, int vm, int[] tasks, double manDelay,
+			LOTOSCompletionTimeEstimator.Prefix parent, LOTOSCompletionTimeEstimator.Prefix memo) {
+		numOfEvaluations++;
+
+		estimator.reset(batch, vm);
+		int last = tasks[tasks.length - 1];
+		if(parent != null && estimator.canExtend(parent, last))
+			estimator.extend(parent, last, memo);
+		else
+			estimator.replay(tasks, memo);
+
+		if(estimator.getCpuPeak() > batch.getVmCpuCapacity(vm) || estimator.getRamPeak() > batch.getVmRamCapacity(vm))
+			return null;
+
+		//distinct users on each access point
+		int[] apIds = new int[tasks.length];
+		int[] apUsers = new int[tasks.length];
+		int numOfApIds = 0;
+		int man = 0;
+		for(int i=0; i<tasks.length; i++) {
+			int ap = batch.getTaskAp(tasks[i]);
+			boolean newUser = true;
+			for(int j=0; j<i; j++) {
+				if(batch.getTaskAp(tasks[j]) == ap && batch.getTaskUser(tasks[j]) == batch.getTaskUser(tasks[i]))
+					newUser = false;
+			}
+			if(newUser) {
+				int k = indexOf(apIds, numOfApIds, ap);
+				if(k < 0) {
+					k = numOfApIds++;
+					apIds[k] = ap;
+				}
+				apUsers[k]++;
+			}
+			if(ap != batch.getVmAp(vm))
+				man++;
+		}
+
+		boolean cloud = batch.isCloudVm(vm);
+		double[] processingTime = new double[tasks.length];
+		double[] communicationTime = new double[tasks.length];
+		double[] waitingTime = new double[tasks.length];
+
+		for(int i=0; i<tasks.length; i++) {
+			int task = tasks[i];
+			int users = apUsers[indexOf(apIds, numOfApIds, batch.getTaskAp(task))];
+
+			processingTime[i] = estimator.getFinishTime(i) - batch.getTaskStart(task);
+			waitingTime[i] = batch.getTaskWaitingTime(task);
+
+			if(cloud)
+				communicationTime[i] = batch.getTaskWanDelay(task, users);
+			else if(batch.getTaskAp(task) == batch.getVmAp(vm))
+				communicationTime[i] = batch.getTaskWlanDelay(task, users);
+			else
+				communicationTime[i] = batch.getTaskWlanDelay(task, users) + manDelay;
+
+			if(batch.getTaskStart(task) + processingTime[i] + communicationTime[i] + waitingTime[i] >= batch.getSimulationTime())
+				return null;
+
+			if(processingTime[i] + communicationTime[i] + waitingTime[i] > batch.getTaskDelayLimit(task))
+				return null;
+		}
+
+		double weight = 0;
+		for(int task : tasks)
+			weight += batch.getTaskWeight(task);
+
+		//only the access points with edge servers are constrained by the model
+		int numOfRows = 0;
+		int[] wlanAps = new int[numOfApIds];
+		int[] wlanUsers = new int[numOfApIds];
+		for(int k=0; k<numOfApIds; k++) {
+			int row = batch.getApIndex(apIds[k]);
+			if(row >= 0) {
+				wlanAps[numOfRows] = row;
+				wlanUsers[numOfRows] = apUsers[k];
+				numOfRows++;
+			}
+		}
+
+		return new LOTOSConfiguration(vm, tasks, estimator.getCpuPeak(), estimator.getRamPeak(),
+				Arrays.copyOf(wlanAps, numOfRows), Arrays.copyOf(wlanUsers, numOfRows),
+				cloud, man, processingTime, communicationTime, waitingTime,
+				batch.getVmCostInitialize(vm), batch.getVmCostPerTime(vm), weight);
+	}
+
+	/*
+	 * M/M/1 delay of the man link for download and upload, computed by
+	 * the network model when the batch was created
+	 */
+	public double calculateManDelay(LOTOSBatch batch) {
+		return batch.getManDelay();
+	}
+
+	/*
+	 * checks that the decision (VM index of each task, -1 if rejected)
+	 * keeps the cpu, ram, delay and bandwidth limits of the batch
+	 */
+	public boolean isFeasible(LOTOSBatch batch, int[] decision) {
+		if(decision.length != batch.getNumOfTasks())
+			return false;
+
+		double manDelay = calculateManDelay(batch);
+		double[] wlanUsed = new double[batch.getNumOfAps()];
+		double[] wanUsed = new double[batch.getNumOfAps()];
+		double manUsed = 0;
+
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			List<Integer> tasks = new ArrayList<Integer>();
+			for(int task=0; task<decision.length; task++) {
+				if(decision[task] == vm)
+					tasks.add(task);
+			}
+			if(tasks.isEmpty())
+				continue;
+
+			int[] rows = new int[tasks.size()];
+			for(int i=0; i<rows.length; i++)
+				rows[i] = tasks.get(i);
+
+			LOTOSConfiguration configuration = createConfiguration(batch, vm, rows, manDelay);
+			if(configuration == null)
+				return false;
+
+			manUsed += configuration.getMan();
+			for(int i=0; i<configuration.getWlanAps().length; i++) {
+				wlanUsed[configuration.getWlanAps()[i]] += configuration.getWlanUsers()[i];
+				if(configuration.usesWan())
+					wanUsed[configuration.getWlanAps()[i]] += configuration.getWlanUsers()[i];
+			}
+		}
+
+		if(manUsed > batch.getManCapacity())
+			return false;
+		for(int ap=0; ap<batch.getNumOfAps(); ap++) {
+			if(wlanUsed[ap] > batch.getApWlanCapacity(ap) || wanUsed[ap] > batch.getApWanCapacity(ap))
+				return false;
+		}
+		return true;
+	}
+
+	/*
+	 * same rounding as float(format(value, '.4f')) in python. value * 1e4
+	 * is rounded to an integer with its exact product error (fma) so that
+	 * halfway cases round to even like the decimal formatting does
+	 */
+	public static double round4(double value) {
+		if(Double.isNaN(value) || Double.isInfinite(value))
+			return value;
+		if(Math.abs(value) >= ROUND4_EXACT_LIMIT)
+			return new BigDecimal(value).setScale(4, RoundingMode.HALF_EVEN).doubleValue();
+
+		double scaled = value * 1e4;
+		double error = Math.fma(value, 1e4, -scaled);
+		double rounded = Math.rint(scaled);
+		double fraction = scaled - rounded;
+		if(fraction == 0.5 && error > 0)
+			rounded += 1;
+		else if(fraction == -0.5 && error < 0)
+			rounded -= 1;
+		return rounded / 1e4 + 0.0;
+	}
+
+	private static int indexOf(int[] values, int length, int value) {
+		for(int i=0; i<length; i++) {
+			if(values[i] == value)
+				return i;
+		}
+		return -1;
+	}
+}
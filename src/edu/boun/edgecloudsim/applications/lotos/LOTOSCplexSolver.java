@@ -0,0 +1,169 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS CPLEX Solver
+ *
+ * Description:
+ * LOTOSCplexSolver solves the batch with the python/docplex model.
+ * The binary batch snapshot is piped to the python solver worker and
+ * the decision comes back on the same pipe. With lotos_solver_debug
+ * the batch is also dumped as json to solver_configs and the worker
+ * writes its configurations and solutions as before. Unless
+ * lotos_config_generator is PYTHON, the configurations are enumerated
+ * by LOTOSConfigurationGenerator and shipped with the batch. The
+ * enumeration time counts against the solver_time_budget, the worker
+ * gets what is left.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import org.json.JSONObject;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+
+public class LOTOSCplexSolver implements OffloadSolver {
+	private LOTOSSolverProcess solverProcess;
+	private LOTOSConfigurationGenerator generator;
+
+	public LOTOSCplexSolver(String instance) {
+		solverProcess = new LOTOSSolverProcess(instance);
+		if(!SimSettings.getInstance().getLotosConfigGenerator().equals("PYTHON"))
+			generator = new LOTOSConfigurationGenerator();
+	}
+
+	@Override
+	public int[] solve(LOTOSBatch batch) {
+		boolean dump = SimSettings.getInstance().getLotosSolverDebug();
+
+		//------------------Record of the elements in json----------------------
+		if(dump){
+			generateMANInformation(batch);
+			generateTaskInformation(batch);
+			generateVMInformation(batch);
+		}
+		//----------------------------------------------------------------------
+
+		//-----------------------Running the Solver-----------------------------
+		double timeBudget = SimSettings.getInstance().getSolverTimeBudget();
+		long deadline = (timeBudget > 0) ? System.nanoTime() + (long)(timeBudget * 1e9) : 0;
+		List<LOTOSConfiguration> configurations = (generator != null) ? generator.generate(batch, deadline) : null;
+		if(timeBudget > 0){
+			timeBudget = (deadline - System.nanoTime()) / 1e9;
+			//no time left for the worker, the orchestrator falls back
+			if(timeBudget <= 0)
+				return null;
+		}
+		int[] result = solverProcess.solve(batch.toByteArray(configurations), batch.getNumOfTasks(), dump, timeBudget);
+		//----------------------------------------------------------------------
+
+		return result;
+	}
+
+	@Override
+	public void shutdown() {
+		solverProcess.shutdown();
+	}
+
+	public void generateMANInformation(LOTOSBatch batch){
+		JSONObject Obj = new JSONObject();
+		JSONObject jsObj = new JSONObject();
+
+		jsObj.put("dev_count", batch.getDevCount());
+		jsObj.put("poisson_dl", batch.getPoissonDownload());
+		jsObj.put("poisson_ul", batch.getPoissonUpload());
+		jsObj.put("avg_upload", batch.getAvgUploadSize());
+		jsObj.put("avg_download", batch.getAvgDownloadSize());
+		jsObj.put("man_bandwidth", batch.getManBandwidth());
+
+		Obj.put("man", jsObj);
+
+		write("solver_configs/_man.json", Obj);
+	}
+
+	public void generateTaskInformation(LOTOSBatch batch){
+		JSONObject Obj = new JSONObject();
+		JSONObject jsObj = new JSONObject();
+
+		for (int i=0; i< batch.getNumOfTasks(); i++){
+			JSONObject taskObj = new JSONObject();
+
+			taskObj.put("task_id", i);
+			taskObj.put("user_id", batch.getTaskUser(i));
+			taskObj.put("download_size", batch.getTaskDownloadSize(i));
+			taskObj.put("upload_size", batch.getTaskUploadSize(i));
+			taskObj.put("cores_demand", batch.getTaskCores(i));
+			taskObj.put("millions_of_instructions", batch.getTaskLength(i));
+			taskObj.put("ap", batch.getTaskAp(i));
+			taskObj.put("delta_inicial", batch.getTaskStart(i));
+			taskObj.put("processing_demand_edge", batch.getTaskProcessingEdge(i));
+			taskObj.put("processing_demand_cloud", batch.getTaskProcessingCloud(i));
+			taskObj.put("ram_demand", batch.getTaskRam(i));
+			taskObj.put("delay_limit", batch.getTaskDelayLimit(i));
+			taskObj.put("waiting_time", batch.getTaskWaitingTime(i));
+
+			jsObj.put(Integer.toString(i), taskObj);
+		}
+
+		Obj.put("tasks", jsObj);
+		Obj.put("simulation_time", batch.getSimulationTime());
+
+		write("solver_configs/_tasks.json", Obj);
+	}
+
+	public void generateVMInformation(LOTOSBatch batch){
+		JSONObject vmTotalObj = new JSONObject();
+		JSONObject vmjsObj = new JSONObject();
+
+		JSONObject apTotalObj = new JSONObject();
+		JSONObject apjsObj = new JSONObject();
+
+		for(int ap=0; ap<batch.getNumOfAps(); ap++){
+			JSONObject apObj = new JSONObject();
+			apObj.put("ap_id", batch.getApId(ap));
+			apObj.put("wan_capacity", batch.getApWanCapacity(ap));
+			apObj.put("wlan_capacity", batch.getApWlanCapacity(ap));
+
+			apjsObj.put(Integer.toString(batch.getApId(ap)), apObj);
+		}
+
+		for(int vm=0; vm<batch.getNumOfVms(); vm++){
+			JSONObject vmObj = new JSONObject();
+			vmObj.put("vm_id", vm);
+			vmObj.put("cpu_capacity", batch.getVmCpuCapacity(vm));
+			vmObj.put("ram_capacity", batch.getVmRamCapacity(vm));
+			vmObj.put("cores", batch.getVmCores(vm));
+			vmObj.put("millions_of_instructions", batch.getVmMips(vm));
+			vmObj.put("ap", batch.getVmAp(vm));
+			vmObj.put("type", batch.isCloudVm(vm) ? "Cloud" : "Edge");
+			vmObj.put("cost_initialize", batch.getVmCostInitialize(vm));
+			vmObj.put("cost_per_time", batch.getVmCostPerTime(vm));
+			vmObj.put("legacy_tasks", batch.getVmLegacyTasks(vm));
+
+			vmjsObj.put(Integer.toString(vm), vmObj);
+		}
+
+		vmTotalObj.put("vms", vmjsObj);
+		apTotalObj.put("aps", apjsObj);
+		apTotalObj.put("man_capacity", batch.getManCapacity());
+
+		write("solver_configs/_vms.json", vmTotalObj);
+		write("solver_configs/_aps.json", apTotalObj);
+	}
+
+	private void write(String fileName, JSONObject Obj){
+		try {
+			FileWriter jsFile = new FileWriter(fileName);
+			jsFile.write(Obj.toString(4));
+
+			jsFile.flush();
+			jsFile.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Decision Cache
+ *
+ * Description:
+ * LOTOSDecisionCache keeps the last solver decisions keyed by a coarse
+ * signature of the batch: type, length bucket and access point of each
+ * task plus the quantized cpu/ram headroom and legacy tasks of each VM.
+ * Periodic tasks often produce batches with the same signature, their
+ * cached decision is reused after checking that it still keeps the
+ * cpu, ram, delay and bandwidth limits of the current batch. Entries
+ * that fail the check are dropped. The least recently used entry is
+ * evicted when the cache is full.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class LOTOSDecisionCache {
+	private static final double LENGTH_BUCKET = 500; //MI
+	private static final double CPU_BUCKET = 10; //percent
+	private static final double RAM_BUCKET = 1000; //MB
+
+	private LinkedHashMap<String, int[]> entries;
+	private LOTOSConfigurationGenerator generator;
+
+	private int numOfHits;
+	private int numOfMisses;
+	private int numOfStaleEntries;
+
+	public LOTOSDecisionCache(int capacity) {
+		//access order makes the map a LRU list
+		entries = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+				return size() > capacity;
+			}
+		};
+		generator = new LOTOSConfigurationGenerator();
+		numOfHits = 0;
+		numOfMisses = 0;
+		numOfStaleEntries = 0;
+	}
+
+	/*
+	 * returns the cached decision of the batch or null on a miss
+	 */
+	public int[] get(LOTOSBatch batch) {
+		String signature = getSignature(batch);
+		int[] decision = entries.get(signature);
+
+		if(decision != null && !generator.isFeasible(batch, decision)) {
+			entries.remove(signature);
+			numOfStaleEntries++;
+			decision = null;
+		}
+
+		if(decision == null) {
+			numOfMisses++;
+			return null;
+		}
+
+		numOfHits++;
+		return decision.clone();
+	}
+
+	public void put(LOTOSBatch batch, int[] decision) {
+		entries.put(getSignature(batch), decision.clone());
+	}
+
+	public void printStatistics() {
+		SimLogger.printLine("Decision cache: " + numOfHits + " hits, " + numOfMisses + " misses, " +
+				numOfStaleEntries + " stale entries");
+	}
+
+	public int getNumOfHits() {
+		return numOfHits;
+	}
+
+	public int getNumOfMisses() {
+		return numOfMisses;
+	}
+
+	public int getNumOfStaleEntries() {
+		return numOfStaleEntries;
+	}
+
+	public String getSignature(LOTOSBatch batch) {
+		StringBuilder signature = new StringBuilder();
+
+		for(int task=0; task<batch.getNumOfTasks(); task++) {
+			signature.append(batch.getTaskType(task)).append(':')
+				.append(Math.round(batch.getTaskLength(task) / LENGTH_BUCKET)).append(':')
+				.append(batch.getTaskAp(task)).append(batch.isTaskPlaceholder(task) ? "p;" : ";");
+		}
+		signature.append('|');
+
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			signature.append(Math.round(batch.getVmCpuCapacity(vm) / CPU_BUCKET)).append(':')
+				.append(Math.round(batch.getVmRamCapacity(vm) / RAM_BUCKET)).append(':')
+				.append(batch.getVmLegacyTasks(vm)).append(';');
+		}
+
+		return signature.toString();
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Decision Log
+ *
+ * Description:
+ * LOTOSDecisionLog appends the decision of each LOTOS batch to a binary
+ * log: the batch id and, for each task, its id (device, start time and
+ * type) with the id and type of the assigned VM, and the wall clock
+ * latency of the decision. The replayed latency drives the orchestration
+ * latency and the adaptive batching like the measured one did, so a
+ * replay also reproduces the dispatch delays and batch sizes of the
+ * recorded run. The log of a run is
+ * named after the hash of its workload (devices, scenario, policy, seed,
+ * simulation time and task types) and the hash of its configuration
+ * files, so a rerun of the same experiment finds it and replays the
+ * decisions instead of calling the solver. Each replayed decision is
+ * checked against the current batch: same tasks, assigned VMs present
+ * and limits kept. At the first mismatch, or at the end of a log cut by
+ * an interrupted run, the replay stops, the log is cut after the last
+ * replayed record and the decisions of the remaining batches are
+ * appended to it, so the next run replays the whole experiment.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+
+public class LOTOSDecisionLog {
+	private static final int MAGIC = 0x4C4F5444; //"LOTD"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 24; //bytes
+	private static final int RECORD_SIZE = 16; //bytes of batch id, number of tasks and latency
+	private static final int TASK_RECORD_SIZE = 24; //bytes of a task and its VM
+
+	private String fileName;
+	private DataOutputStream output;
+	private DataInputStream input;
+	private long replayedLength; //bytes of the header and the replayed records
+	private LOTOSConfigurationGenerator generator;
+
+	private double replayedLatency;
+
+	private int numOfRecorded;
+	private int numOfReplayed;
+	private int numOfMismatches;
+
+	public LOTOSDecisionLog(String mode, int numOfDevices, String simScenario, String orchestratorPolicy) {
+		generator = new LOTOSConfigurationGenerator();
+		long workloadHash = hashWorkload(numOfDevices, simScenario, orchestratorPolicy);
+		long configurationHash = SimSettings.getInstance().getConfigurationHash();
+
+		File folder = new File(SimSettings.getInstance().getLotosDecisionLogFolder());
+		folder.mkdirs();
+		fileName = new File(folder, "lotos_" + Long.toHexString(workloadHash) + "_" +
+				Long.toHexString(configurationHash) + ".log").getPath();
+
+		try {
+			if(mode.equals("REPLAY") && new File(fileName).exists()) {
+				input = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)));
+				if(hasHeader(workloadHash, configurationHash)) {
+					SimLogger.printLine("Decisions are replayed from " + fileName);
+					replayedLength = HEADER_SIZE;
+					return;
+				}
+				SimLogger.printLine("Decision log " + fileName + " belongs to another workload or configuration, it is recorded again");
+				input.close();
+				input = null;
+			}
+			else if(mode.equals("REPLAY")) {
+				SimLogger.printLine("No decision log for this workload and configuration, decisions are recorded to " + fileName);
+			}
+
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(workloadHash);
+			output.writeLong(configurationHash);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/*
+	 * returns the logged decision of the batch (VM index of each batch
+	 * task, -1 if rejected) or null if the replay is over or the logged
+	 * decision does not fit the batch, its latency is then returned by
+	 * getReplayedLatency
+	 */
+	public int[] replay(int batchId, List<TaskProperty> tasks, LOTOSBatch batch) {
+		if(input == null)
+			return null;
+
+		int[] decision = new int[batch.getNumOfTasks()];
+		Arrays.fill(decision, -1);
+		boolean matches;
+		boolean ended = false;
+		int numOfTasks = 0;
+		try {
+			matches = (input.readInt() == batchId);
+			numOfTasks = input.readInt();
+			matches = matches && (numOfTasks == tasks.size());
+
+			//the whole record is read even after a mismatch
+			for(int i=0; i<numOfTasks; i++) {
+				int deviceId = input.readInt();
+				double startTime = input.readDouble();
+				int taskType = input.readInt();
+				int vmId = input.readInt();
+				int vmType = input.readInt();
+				if(!matches)
+					continue;
+
+				TaskProperty task = tasks.get(i);
+				matches = task.getMobileDeviceId() == deviceId && task.getStartTime() == startTime &&
+						task.getTaskType() == taskType;
+				if(matches && vmId >= 0) {
+					decision[i] = indexOfVm(batch, vmId, vmType);
+					matches = decision[i] >= 0;
+				}
+			}
+			replayedLatency = input.readDouble();
+		} catch (EOFException e) {
+			matches = false;
+			ended = true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			matches = false;
+		}
+
+		if(matches && generator.isFeasible(batch, decision)) {
+			replayedLength += RECORD_SIZE + (long)TASK_RECORD_SIZE * numOfTasks;
+			numOfReplayed++;
+			return decision;
+		}
+
+		if(ended) {
+			SimLogger.printLine("Decision log ends before batch " + batchId + ", the remaining batches are solved and appended to it");
+		}
+		else {
+			SimLogger.printLine("Decision log does not match batch " + batchId + ", it is cut after the last replayed batch " +
+					"and the remaining batches are solved and appended to it");
+			numOfMismatches++;
+		}
+		appendAfterReplay();
+		return null;
+	}
+
+	/*
+	 * appends the decision of the first tasks.size() tasks of the batch
+	 * and its latency in seconds
+	 */
+	public void record(int batchId, List<TaskProperty> tasks, LOTOSBatch batch, int[] decision, double latency) {
+		if(output == null)
+			return;
+
+		try {
+			output.writeInt(batchId);
+			output.writeInt(tasks.size());
+			for(int i=0; i<tasks.size(); i++) {
+				TaskProperty task = tasks.get(i);
+				output.writeInt(task.getMobileDeviceId());
+				output.writeDouble(task.getStartTime());
+				output.writeInt(task.getTaskType());
+				output.writeInt(decision[i] >= 0 ? batch.getVm(decision[i]).getId() : -1);
+				output.writeInt(decision[i] >= 0 ? batch.getVmType(decision[i]) : -1);
+			}
+			output.writeDouble(latency);
+			numOfRecorded++;
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	public void close() {
+		closeInput();
+		if(output != null) {
+			try {
+				output.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			output = null;
+		}
+	}
+
+	public void printStatistics() {
+		SimLogger.printLine("Decision log: " + numOfReplayed + " batches replayed, " + numOfRecorded +
+				" batches recorded, " + numOfMismatches + " mismatches");
+	}
+
+	public double getReplayedLatency() {
+		return replayedLatency;
+	}
+
+	public int getNumOfReplayed() {
+		return numOfReplayed;
+	}
+
+	public int getNumOfRecorded() {
+		return numOfRecorded;
+	}
+
+	private void closeInput() {
+		if(input != null) {
+			try {
+				input.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			input = null;
+		}
+	}
+
+	/*
+	 * cuts the log after the last replayed record, dropping a record cut by
+	 * an interrupted run or the records that no longer match, and opens it
+	 * to append the decisions of the remaining batches
+	 */
+	private void appendAfterReplay() {
+		closeInput();
+		try {
+			RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+			file.setLength(replayedLength);
+			file.close();
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName, true)));
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	/*
+	 * a log cut before the end of its header (interrupted run) has no header
+	 */
+	private boolean hasHeader(long workloadHash, long configurationHash) throws IOException {
+		try {
+			return input.readInt() == MAGIC && input.readInt() == VERSION &&
+					input.readLong() == workloadHash && input.readLong() == configurationHash;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * the same vm id may be used by an edge and a cloud VM, the type tells them apart
+	 */
+	private static int indexOfVm(LOTOSBatch batch, int vmId, int vmType) {
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			if(batch.getVm(vm).getId() == vmId && batch.getVmType(vm) == vmType)
+				return vm;
+		}
+		return -1;
+	}
+
+	/*
+	 * SHA-256 (first 8 bytes) of what the generated tasks depend on
+	 */
+	private static long hashWorkload(int numOfDevices, String simScenario, String orchestratorPolicy) {
+		long hash = 0;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(numOfDevices);
+			out.writeUTF(simScenario);
+			out.writeUTF(orchestratorPolicy);
+			out.writeInt(SimSettings.getInstance().getSeed());
+			out.writeDouble(SimSettings.getInstance().getSimulationTime());
+			for(double[] taskType : SimSettings.getInstance().getTaskLookUpTable()) {
+				for(double value : taskType)
+					out.writeDouble(value);
+			}
+			out.flush();
+
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			hash = ByteBuffer.wrap(digest.digest(bytes.toByteArray())).getLong();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Decomposed Solver
+ *
+ * Description:
+ * LOTOSDecomposedSolver splits the batch by the serving access point of
+ * the tasks. Each partition is solved with the edge VMs behind its own
+ * access point on a thread pool; these partitions share no capacity.
+ * The tasks that are not accepted locally are then solved together on
+ * the remaining edge VMs (through the man link) and on the cloud VMs,
+ * with the wlan capacity left by the partitions. This coordination step
+ * is the only one that sees the man and wan capacities.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class LOTOSDecomposedSolver implements OffloadSolver {
+	private ExecutorService executor;
+	private LOTOSConfigurationGenerator generator;
+	private double timeBudget; //seconds, split between the partitions and the coordination step
+
+	private int numOfBatches;
+	private long numOfPartitions;
+	private long numOfCoordinatedTasks;
+
+	public LOTOSDecomposedSolver() {
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		executor = Executors.newFixedThreadPool(numOfThreads, runnable -> {
+			Thread thread = new Thread(runnable, "LOTOS solver");
+			thread.setDaemon(true);
+			return thread;
+		});
+		generator = new LOTOSConfigurationGenerator();
+		timeBudget = SimSettings.getInstance().getSolverTimeBudget();
+		numOfBatches = 0;
+		numOfPartitions = 0;
+		numOfCoordinatedTasks = 0;
+	}
+
+	@Override
+	public int[] solve(LOTOSBatch batch) {
+		int[] result = new int[batch.getNumOfTasks()];
+		Arrays.fill(result, -1);
+		boolean[] vmUsed = new boolean[batch.getNumOfVms()];
+		double phaseBudget = timeBudget / 2;
+
+		//-------------------Partitions by serving access point--------------------
+		List<int[]> partitionTasks = new ArrayList<int[]>();
+		List<int[]> partitionVms = new ArrayList<int[]>();
+		List<Future<int[]>> partitionResults = new ArrayList<Future<int[]>>();
+
+		boolean[] assigned = new boolean[batch.getNumOfTasks()];
+		for(int first=0; first<batch.getNumOfTasks(); first++) {
+			if(assigned[first])
+				continue;
+
+			int ap = batch.getTaskAp(first);
+			List<Integer> tasks = new ArrayList<Integer>();
+			for(int task=first; task<batch.getNumOfTasks(); task++) {
+				if(batch.getTaskAp(task) == ap) {
+					tasks.add(task);
+					assigned[task] = true;
+				}
+			}
+
+			List<Integer> vms = new ArrayList<Integer>();
+			for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+				if(!batch.isCloudVm(vm) && batch.getVmAp(vm) == ap)
+					vms.add(vm);
+			}
+
+			//without local VMs the tasks go to the coordination step
+			if(vms.isEmpty())
+				continue;
+
+			int[] taskRows = toArray(tasks);
+			int[] vmRows = toArray(vms);
+			LOTOSBatch partition = batch.subBatch(taskRows, vmRows);
+
+			partitionTasks.add(taskRows);
+			partitionVms.add(vmRows);
+			partitionResults.add(executor.submit(() -> new LOTOSBranchAndBoundSolver(phaseBudget).solve(partition)));
+		}
+
+		int numOfAccepted = 0;
+		for(int i=0; i<partitionResults.size(); i++) {
+			int[] solution = null;
+			try {
+				solution = partitionResults.get(i).get();
+			} catch (InterruptedException | ExecutionException e) {
+				e.printStackTrace();
+			}
+			if(solution == null)
+				continue;
+
+			for(int j=0; j<solution.length; j++) {
+				if(solution[j] >= 0) {
+					result[partitionTasks.get(i)[j]] = partitionVms.get(i)[solution[j]];
+					vmUsed[partitionVms.get(i)[solution[j]]] = true;
+					numOfAccepted++;
+				}
+			}
+		}
+		//-------------------------------------------------------------------------
+
+		numOfBatches++;
+		numOfPartitions += partitionResults.size();
+
+		//--------------------------Coordination step------------------------------
+		List<Integer> tasks = new ArrayList<Integer>();
+		for(int task=0; task<batch.getNumOfTasks(); task++) {
+			if(result[task] < 0)
+				tasks.add(task);
+		}
+		List<Integer> vms = new ArrayList<Integer>();
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			if(!vmUsed[vm])
+				vms.add(vm);
+		}
+		if(tasks.isEmpty() || vms.isEmpty())
+			return (numOfAccepted == 0 && !tasks.isEmpty()) ? null : result;
+
+		numOfCoordinatedTasks += tasks.size();
+		int[] taskRows = toArray(tasks);
+		int[] vmRows = toArray(vms);
+		LOTOSBatch coordination = batch.subBatch(taskRows, vmRows);
+
+		//wlan capacity left by the partitions
+		double[] wlanUsed = new double[batch.getNumOfAps()];
+		for(int vm=0; vm<batch.getNumOfVms(); vm++) {
+			if(vmUsed[vm]) {
+				List<Integer> vmTasks = new ArrayList<Integer>();
+				for(int task=0; task<batch.getNumOfTasks(); task++) {
+					if(result[task] == vm)
+						vmTasks.add(task);
+				}
+				LOTOSConfiguration configuration = generator.createConfiguration(batch, vm, toArray(vmTasks));
+				for(int i=0; i<configuration.getWlanAps().length; i++)
+					wlanUsed[configuration.getWlanAps()[i]] += configuration.getWlanUsers()[i];
+			}
+		}
+		for(int ap=0; ap<batch.getNumOfAps(); ap++)
+			coordination.setAp(batch.getApId(ap), batch.getApWlanCapacity(ap) - wlanUsed[ap], batch.getApWanCapacity(ap));
+
+		int[] solution = new LOTOSBranchAndBoundSolver(phaseBudget).solve(coordination);
+		if(solution == null)
+			return (numOfAccepted == 0) ? null : result;
+
+		for(int j=0; j<solution.length; j++) {
+			if(solution[j] >= 0)
+				result[taskRows[j]] = vmRows[solution[j]];
+		}
+		//-------------------------------------------------------------------------
+
+		return result;
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdownNow();
+
+		if(numOfBatches > 0) {
+			SimLogger.printLine("Decomposition: " + numOfBatches + " batches, " +
+					String.format("%.1f", (double)numOfPartitions / numOfBatches) + " partitions and " +
+					String.format("%.1f", (double)numOfCoordinatedTasks / numOfBatches) + " coordinated tasks per batch");
+		}
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for(int i=0; i<array.length; i++)
+			array[i] = list.get(i);
+		return array;
+	}
+}
@@ -12,36 +12,19 @@
 
 package edu.boun.edgecloudsim.applications.lotos;
 
-import org.json.JSONObject;
-import java.io.FileReader;
-
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import java.io.IOException;
-
-import java.io.File;
-import java.io.FileWriter;
-
-import java.util.Random;
-
 import edu.boun.edgecloudsim.utils.Location;
 import edu.boun.edgecloudsim.utils.Decision;
 
-import java.util.Map;
-import java.util.HashMap;
-
-import java.io.InputStreamReader;
-import java.io.BufferedReader;
-
 import edu.boun.edgecloudsim.utils.TaskProperty;
 
 import edu.boun.edgecloudsim.scheduler.CustomizedCloudletSchedulerTimeShared;
 
 import org.antlr.runtime.RecognitionException;
 import org.cloudbus.cloudsim.Host;
-import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -54,6 +37,7 @@ import edu.boun.edgecloudsim.edge_server.EdgeHost;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.network.BatchDelayModel;
 import edu.boun.edgecloudsim.utils.SimLogger;
 
 public class LOTOSEdgeOrchestrator extends EdgeOrchestrator {
@@ -61,6 +45,14 @@ public class LOTOSEdgeOrchestrator extends EdgeOrchestrator {
 	
 	private int numberOfEdgeHost; //used by load balancer
 	private int numberOfCloudHost;
+	private OffloadSolver solver;
+	private LOTOSDecisionCache cache;
+	private LOTOSArrivalPredictor predictor;
+	private LOTOSDecisionLog decisionLog;
+	private LOTOSConfigurationGenerator generator;
+	private BatchDelayModel batchDelayModel;
+	private int numOfFallbackBatches;
+	private int numOfBatches;
 
 	public LOTOSEdgeOrchestrator(String _policy, String _simScenario) {
 		super(_policy, _simScenario);
@@ -70,6 +62,32 @@ public class LOTOSEdgeOrchestrator extends EdgeOrchestrator {
 	public void initialize() {
 		numberOfEdgeHost=SimSettings.getInstance().getNumOfEdgeHosts();
 		numberOfCloudHost=SimSettings.getInstance().getNumOfCloudHost();
+		numOfFallbackBatches=0;
+		numOfBatches=0;
+		generator = new LOTOSConfigurationGenerator();
+
+		if(SimSettings.getInstance().getLotosDecisionCacheSize() > 0)
+			cache = new LOTOSDecisionCache(SimSettings.getInstance().getLotosDecisionCacheSize());
+
+		if(SimSettings.getInstance().getLotosLookaheadHorizon() > 0)
+			predictor = new LOTOSArrivalPredictor(SimSettings.getInstance().getLotosLookaheadHorizon(),
+					SimSettings.getInstance().getLotosLookaheadMaxTasks());
+
+		if(!SimSettings.getInstance().getLotosDecisionLog().equals("NONE"))
+			decisionLog = new LOTOSDecisionLog(SimSettings.getInstance().getLotosDecisionLog(),
+					LOTOSExperimentalNetworkModel.getInstance().getNumOfDevices(), simScenario, policy);
+
+		String instance = Integer.toString(LOTOSExperimentalNetworkModel.getInstance().getNumOfDevices());
+		if(SimSettings.getInstance().getLotosSolver().equals("JAVA"))
+			solver = new LOTOSBranchAndBoundSolver();
+		else if(SimSettings.getInstance().getLotosSolver().equals("COLGEN"))
+			solver = new LOTOSColumnGenerationSolver();
+		else if(SimSettings.getInstance().getLotosSolver().equals("DECOMPOSED"))
+			solver = new LOTOSDecomposedSolver();
+		else if(SimSettings.getInstance().getLotosSolver().equals("COMPARE"))
+			solver = new LOTOSComparingSolver(new LOTOSCplexSolver(instance), new LOTOSBranchAndBoundSolver());
+		else
+			solver = new LOTOSCplexSolver(instance);
 	}
 	
 	@Override
@@ -130,65 +148,58 @@ public class LOTOSEdgeOrchestrator extends EdgeOrchestrator {
 	}
 
 	/*Abordagem aleatória*/ 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Decision chooseVmToOffload(List<TaskProperty> tasks){
+		long decisionStart = System.nanoTime();
 		List<Vm> listOfVms = new ArrayList<Vm>();
 		List<Integer> listOfTypes = new ArrayList<Integer>();
 
-		//------------------Record of the elements in json----------------------
-		generateMANInformation();
-
-		double mean_size = generateTaskInformation(tasks);
-
-		List<Object> returned_elements = generateVMInformation(mean_size);
-		Map<String, Vm> vmdictionary = (Map<String, Vm>)returned_elements.get(0);
-		Map<String, Integer> typedictionary = (Map<String, Integer>)returned_elements.get(1);
-		//----------------------------------------------------------------------
-
-		//-----------------------Running the Solver-----------------------------
-		ProcessBuilder processBuilder = new ProcessBuilder();
-        try {
-			Process p = new ProcessBuilder("python3", "../../src/edu/boun/edgecloudsim/applications/lotos/LOTOS/create_config.py", Integer.toString(SimManager.getInstance().getNumOfMobileDevice())).redirectErrorStream(true).start();
-			p.getInputStream().transferTo(System.out);
-			int rc = p.waitFor();
-		} catch (Exception e) {
-            e.printStackTrace();
-        }
-        try {
-			Process p = new ProcessBuilder("python3", "../../src/edu/boun/edgecloudsim/applications/lotos/LOTOS/model.py", Integer.toString(SimManager.getInstance().getNumOfMobileDevice())).redirectErrorStream(true).start();
-			p.getInputStream().transferTo(System.out);
-			int rc = p.waitFor();
-		} catch (Exception e) {
-            e.printStackTrace();
-        }
-		//----------------------------------------------------------------------
-
-		//-----------------------Reding the solution----------------------------
-        StringBuilder jsonContent = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader("solver_solutions/S2_sol.json"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                jsonContent.append(line);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        JSONObject jsonObject = new JSONObject(jsonContent.toString());
-		JSONObject solutionObject = jsonObject.getJSONObject("solution");
+		//predicted arrivals follow the real tasks in the batch as placeholders, only the real tasks are committed
+		List<TaskProperty> plannedTasks = tasks;
+		if (predictor != null){
+			predictor.observe(tasks);
+			plannedTasks = new ArrayList<TaskProperty>(tasks);
+			plannedTasks.addAll(predictor.predict(CloudSim.clock()));
+		}
+
+		LOTOSBatch batch = createBatch(plannedTasks);
+		for (int i=tasks.size(); i<plannedTasks.size(); i++)
+			batch.setTaskPlaceholder(i);
+		numOfBatches++;
+
+		int[] solution = (decisionLog != null) ? decisionLog.replay(numOfBatches, tasks, batch) : null;
+		double solverLatency = (solution != null) ? decisionLog.getReplayedLatency() : 0;
+		if (solution == null){
+			solution = (cache != null) ? cache.get(batch) : null;
+			if (solution == null){
+				solution = solver.solve(batch);
+				if (solution != null && cache != null)
+					cache.put(batch, solution);
+			}
+			if (solution == null){
+				//the solver has no decision within the time budget
+				numOfFallbackBatches++;
+				solution = chooseLeastLoadedVms(tasks, batch);
+			}
+			solverLatency = (System.nanoTime() - decisionStart) / 1e9;
+			if (decisionLog != null)
+				decisionLog.record(numOfBatches, tasks, batch, solution, solverLatency);
+		}
+
 		for (int i=0; i< tasks.size(); i++){
-			String key = Integer.toString(i);
-			if (solutionObject.has(key)) { 
-				listOfVms.add(vmdictionary.get(solutionObject.getString(key)));
-				listOfTypes.add(typedictionary.get(solutionObject.getString(key)));
+			if (solution[i] >= 0) {
+				listOfVms.add(batch.getVm(solution[i]));
+				listOfTypes.add(batch.getVmType(solution[i]));
 			} else {
-				listOfVms.add(null); 
+				listOfVms.add(null);
 				listOfTypes.add(null);
-    		}
+			}
 		}
-		//----------------------------------------------------------------------
 
 		Decision decision = new Decision(listOfVms, listOfTypes);
+		//the wall clock latency of a recorded batch is replayed with its decision
+		if (decisionLog != null)
+			decision.setSolverLatency(solverLatency);
 		return decision;
 	}
 
@@ -199,193 +210,176 @@ public class LOTOSEdgeOrchestrator extends EdgeOrchestrator {
 
 	@Override
 	public void shutdownEntity() {
-		// Nothing to do!
-	}
-
-	@Override
-	public void startEntity() {
-		// Nothing to do!
-	}
-
-	@SuppressWarnings("unchecked")
-	public void generateMANInformation(){
-		JSONObject Obj = new JSONObject();
-		JSONObject jsObj = new JSONObject();
+		solver.shutdown();
+		if(cache != null)
+			cache.printStatistics();
+		if(decisionLog != null){
+			decisionLog.close();
+			decisionLog.printStatistics();
+		}
 
-		/*Information about tasks*/
-		int devCount = LOTOSExperimentalNetworkModel.getInstance().getNumOfDevices();
-		double poissonDL = LOTOSExperimentalNetworkModel.getInstance().getPoissonDownload();
-		double poissonUL = LOTOSExperimentalNetworkModel.getInstance().getPoissonUpload();
-		double avgInput = LOTOSExperimentalNetworkModel.getInstance().getavgManTaskInputSize();
-		double avgOutput = LOTOSExperimentalNetworkModel.getInstance().getavgManTaskOutputSize();
-		double manBW = LOTOSExperimentalNetworkModel.getInstance().getMANBand();
-		/*------------------------*/
+		if(numOfFallbackBatches > 0)
+			SimLogger.printLine(numOfFallbackBatches + " batches were assigned to the least loaded VMs");
 
-		jsObj.put("dev_count", devCount);
-		jsObj.put("poisson_dl", poissonDL);
-		jsObj.put("poisson_ul", poissonUL);
-		jsObj.put("avg_upload", avgInput);
-		jsObj.put("avg_download", avgOutput);
-		jsObj.put("man_bandwidth", manBW);
+		if(predictor != null && predictor.getNumOfBatches() > 0)
+			SimLogger.printLine("Look-ahead: " + String.format("%.2f", (double)predictor.getNumOfPlaceholders() / predictor.getNumOfBatches()) +
+					" predicted tasks per batch");
+	}
 
-		Obj.put("man", jsObj);
+	/*
+	 * greedy decision used when the solver fails: each task goes to the
+	 * least loaded edge VM it fits in, or to the least loaded cloud VM if
+	 * it fits in no edge VM. The cpu, ram and network taken by the tasks
+	 * placed before it in the batch are counted, predicted tasks stay out
+	 */
+	private int[] chooseLeastLoadedVms(List<TaskProperty> tasks, LOTOSBatch batch){
+		int[] solution = new int[batch.getNumOfTasks()];
+		Arrays.fill(solution, -1);
 
+		double[] cpuLeft = new double[batch.getNumOfVms()];
+		for(int vm=0; vm<batch.getNumOfVms(); vm++)
+			cpuLeft[vm] = batch.getVmCpuCapacity(vm);
 
-		try {
-			FileWriter jsFile = new FileWriter("solver_configs/_man.json");
-			jsFile.write(Obj.toString(4));
+		for (int i=0; i< tasks.size(); i++){
+			int selectedVm = firstFit(batch, solution, i, cpuLeft, false);
+			if (selectedVm < 0)
+				selectedVm = firstFit(batch, solution, i, cpuLeft, true);
+			solution[i] = selectedVm;
+		}
+		return solution;
+	}
 
+	/*
+	 * tries the edge or cloud VMs from the least loaded one and returns the
+	 * first one keeping the partial decision feasible, or -1
+	 */
+	private int firstFit(LOTOSBatch batch, int[] solution, int task, double[] cpuLeft, boolean cloud){
+		boolean[] tried = new boolean[batch.getNumOfVms()];
+		while(true){
+			int selectedVm = -1;
+			for(int vm=0; vm<batch.getNumOfVms(); vm++){
+				if(!tried[vm] && batch.isCloudVm(vm) == cloud && (selectedVm < 0 || cpuLeft[vm] > cpuLeft[selectedVm]))
+					selectedVm = vm;
+			}
+			if(selectedVm < 0)
+				return -1;
+			tried[selectedVm] = true;
+
+			solution[task] = selectedVm;
+			if(generator.isFeasible(batch, solution)){
+				List<Integer> rows = new ArrayList<Integer>();
+				for(int i=0; i<solution.length; i++){
+					if(solution[i] == selectedVm)
+						rows.add(i);
+				}
+				LOTOSConfiguration configuration = generator.createConfiguration(batch, selectedVm,
+						rows.stream().mapToInt(Integer::intValue).toArray());
+				cpuLeft[selectedVm] = batch.getVmCpuCapacity(selectedVm) - configuration.getCpu();
+				return selectedVm;
+			}
+			solution[task] = -1;
+		}
+	}
 
-			jsFile.flush();
-			jsFile.close();
-		} catch (IOException e) {
-    		e.printStackTrace();
+	@Override
+	public void startEntity() {
+		//the batches look their network delays up in a matrix computed once per batch,
+		//SimManager is only reachable once the simulation starts
+		if(!(SimManager.getInstance().getNetworkModel() instanceof BatchDelayModel)) {
+			SimLogger.printLine("Configuration error - the network model " +
+					SimManager.getInstance().getNetworkModel().getClass().getSimpleName() +
+					" does not implement BatchDelayModel required by LOTOSEdgeOrchestrator. Terminating simulation...");
+			System.exit(1);
 		}
+		batchDelayModel = (BatchDelayModel)SimManager.getInstance().getNetworkModel();
 	}
 
-	@SuppressWarnings("unchecked")
-	public double generateTaskInformation(List<TaskProperty> tasks){
+	/*
+	 * collects the state of the tasks, VMs, access points and man link
+	 */
+	public LOTOSBatch createBatch(List<TaskProperty> tasks){
+		int numberOfVms = 0;
+		for(int hostIndex=0; hostIndex<numberOfEdgeHost; hostIndex++)
+			numberOfVms += SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex).size();
+		for(int hostIndex=0; hostIndex<numberOfCloudHost; hostIndex++)
+			numberOfVms += SimManager.getInstance().getCloudServerManager().getVmList(hostIndex).size();
 
-		JSONObject Obj = new JSONObject();
-		JSONObject jsObj = new JSONObject();
+		LOTOSBatch batch = new LOTOSBatch(tasks.size(), numberOfVms, SimSettings.getInstance().getSimulationTime());
 
+		/*Information about tasks*/
 		double mean_size_ul = 0;
 		double mean_size_dl = 0;
 
 		for (int i=0; i< tasks.size(); i++){
-
-			mean_size_ul = mean_size_ul + tasks.get(i).getOutputFileSize();
-			mean_size_dl = mean_size_dl + tasks.get(i).getInputFileSize();
-
-			JSONObject taskObj = new JSONObject();
-
-
-			/*Information about tasks*/
-			int taskID = i;
-			int userID = tasks.get(i).getMobileDeviceId();
-			double download_size = tasks.get(i).getInputFileSize();
-			double upload_size = tasks.get(i).getOutputFileSize();
-			double cores = tasks.get(i).getPesNumber();
-			double milps = tasks.get(i).getLength();
-			Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(tasks.get(i).getMobileDeviceId(), CloudSim.clock());
-			int ap = currentLocation.getServingWlanId();
-			double start = ((TaskProperty)tasks.get(i)).getStartTime();
-			double waiting_time = (CloudSim.clock() - start);
-			double processing_edge = SimSettings.getInstance().getTaskLookUpTable()[tasks.get(i).getTaskType()][9];
-			double processing_cloud = SimSettings.getInstance().getTaskLookUpTable()[tasks.get(i).getTaskType()][10];
-			double ram = SimSettings.getInstance().getTaskLookUpTable()[tasks.get(i).getTaskType()][14];
-			double delay = SimSettings.getInstance().getTaskLookUpTable()[tasks.get(i).getTaskType()][13];
-			/*-----------------------*/
-
-			taskObj.put("task_id", taskID);
-			taskObj.put("user_id", userID);
-			taskObj.put("download_size", download_size);
-			taskObj.put("upload_size", upload_size);
-			taskObj.put("cores_demand", cores);
-			taskObj.put("millions_of_instructions", milps);
-			taskObj.put("ap", ap);
-			taskObj.put("delta_inicial", start);
-			taskObj.put("processing_demand_edge", processing_edge);
-			taskObj.put("processing_demand_cloud", processing_cloud);
-			taskObj.put("ram_demand", ram);
-			taskObj.put("delay_limit", delay);
-			taskObj.put("waiting_time", waiting_time);
-
-			jsObj.put(Integer.toString(taskID), taskObj);
-
+			TaskProperty task = tasks.get(i);
+			double[] lookUpTable = SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()];
+			Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(), CloudSim.clock());
+
+			mean_size_ul = mean_size_ul + task.getOutputFileSize();
+			mean_size_dl = mean_size_dl + task.getInputFileSize();
+
+			batch.setTask(i,
+					task.getMobileDeviceId(),
+					task.getOutputFileSize(),
+					task.getInputFileSize(),
+					task.getPesNumber(),
+					task.getLength(),
+					currentLocation.getServingWlanId(),
+					task.getStartTime(),
+					Math.max(0, CloudSim.clock() - task.getStartTime()),
+					lookUpTable[9],
+					lookUpTable[10],
+					lookUpTable[14],
+					lookUpTable[13]);
+			batch.setTaskType(i, task.getTaskType());
 		}
 
 		mean_size_ul = mean_size_ul/tasks.size();
-		mean_size_dl = mean_size_dl/tasks.size();	
-
-		Obj.put("tasks", jsObj);
-		Obj.put("simulation_time", SimSettings.getInstance().getSimulationTime());
-
-		try {
-			FileWriter jsFile = new FileWriter("solver_configs/_tasks.json");
-			jsFile.write(Obj.toString(4));
-
+		mean_size_dl = mean_size_dl/tasks.size();
 
-			jsFile.flush();
-			jsFile.close();
-		} catch (IOException e) {
-    		e.printStackTrace();
-		}
-
-		if(mean_size_ul > mean_size_dl){
-			return mean_size_ul;
-		}else{
-			return mean_size_dl;
+		/*Network delays of the tasks, a configuration has at most one user per task on a link*/
+		double[] upload_sizes = new double[tasks.size()];
+		double[] download_sizes = new double[tasks.size()];
+		for (int i=0; i< tasks.size(); i++){
+			upload_sizes[i] = batch.getTaskUploadSize(i);
+			download_sizes[i] = batch.getTaskDownloadSize(i);
 		}
-	}
-
-
-	@SuppressWarnings("unchecked")
-	public List<Object> generateVMInformation(double mean_size){
-
-		Map<String, Vm> vmdictionary = new HashMap<>();
-		Map<String, Integer> typedictionary = new HashMap<>();
-
-		JSONObject vmTotalObj = new JSONObject();
-		JSONObject vmjsObj = new JSONObject();
-
-		JSONObject apTotalObj = new JSONObject();
-		JSONObject apjsObj = new JSONObject();
+		double mean_size = (mean_size_ul > mean_size_dl) ? mean_size_ul : mean_size_dl;
 
+		/*Information about VMs and access points*/
+		double vm_feature;
 		int number_of_edge_vms = 0;
 		int number_of_cloud_vms = 0;
 
-		double man_capacity = 1300*1024/mean_size;
-
-		double vm_feature;
-
+		//shares reserved for periodic streams and not used by their running frames are not offered to the solver
+		LOTOSMobileDeviceManager deviceManager = (LOTOSMobileDeviceManager)SimManager.getInstance().getMobileDeviceManager();
 		for(int hostIndex=0; hostIndex<numberOfEdgeHost; hostIndex++){
-
-			JSONObject apObj = new JSONObject();
-
 			List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex);
 
-			EdgeHost host = (EdgeHost)(vmArray.get(0).getHost());
-
-			apObj.put("ap_id", host.getLocation().getServingWlanId());
-
-			vm_feature = 25-SimManager.getInstance().getNetworkModel().getWanClients(host.getLocation().getServingWlanId());
-			vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-			apObj.put("wan_capacity", vm_feature);
-
-			vm_feature = 100-SimManager.getInstance().getNetworkModel().getWlanClients(host.getLocation().getServingWlanId());
-			vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-			apObj.put("wlan_capacity", vm_feature);
-
-			apjsObj.put(Integer.toString(host.getLocation().getServingWlanId()), apObj);
+			int ap = ((EdgeHost)(vmArray.get(0).getHost())).getLocation().getServingWlanId();
+			double wan_capacity = 25-SimManager.getInstance().getNetworkModel().getWanClients(ap);
+			double wlan_capacity = 100-SimManager.getInstance().getNetworkModel().getWlanClients(ap);
+			batch.setAp(ap, (wlan_capacity < 0) ? 0 : wlan_capacity, (wan_capacity < 0) ? 0 : wan_capacity);
 
 			for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
+				EdgeVM vm = vmArray.get(vmIndex);
+				CustomizedCloudletSchedulerTimeShared scheduler = (CustomizedCloudletSchedulerTimeShared)vm.getCloudletScheduler();
+				double cpu_capacity = (double)100 - scheduler.getTotalUtilizationOfCpu(CloudSim.clock()) - deviceManager.getUnusedReservedCpu(vm);
+				double ram_capacity = vm.getRam() - scheduler.getTotalUtilizationOfRam(CloudSim.clock()) - deviceManager.getUnusedReservedRam(vm);
+
+				batch.setVm(number_of_edge_vms,
+						vm,
+						hostIndex,
+						(cpu_capacity < 0) ? 0 : cpu_capacity,
+						(ram_capacity < 0) ? 0 : ram_capacity,
+						vm.getNumberOfPes(),
+						vm.getMips(),
+						((EdgeHost)(vm.getHost())).getLocation().getServingWlanId(),
+						false,
+						SimSettings.getInstance().getEdgeLookUpTable().get(number_of_edge_vms)[0],
+						SimSettings.getInstance().getEdgeLookUpTable().get(number_of_edge_vms)[1],
+						SimLogger.getInstance().getVMMapTaskNumber(vm.getId()));
 
-        		vmdictionary.put(Integer.toString(number_of_edge_vms), vmArray.get(vmIndex));
-        		typedictionary.put(Integer.toString(number_of_edge_vms), hostIndex);
-
-				JSONObject vmObj = new JSONObject();
-				vmObj.put("vm_id", number_of_edge_vms);
-				vm_feature = ((double)100 - vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock()));
-				vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-				vmObj.put("cpu_capacity", vm_feature);
-
-				CustomizedCloudletSchedulerTimeShared fuzzyCloudSched = (CustomizedCloudletSchedulerTimeShared)vmArray.get(vmIndex).getCloudletScheduler();
-
-				vm_feature = vmArray.get(vmIndex).getRam() - fuzzyCloudSched.getTotalUtilizationOfRam(CloudSim.clock());
-				vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-				vmObj.put("ram_capacity", vm_feature);
-				vmObj.put("cores", vmArray.get(vmIndex).getNumberOfPes());
-				vmObj.put("millions_of_instructions", vmArray.get(vmIndex).getMips());
-				host = (EdgeHost)(vmArray.get(vmIndex).getHost());
-				vmObj.put("ap", host.getLocation().getServingWlanId());
-				vmObj.put("type", "Edge");
-				vmObj.put("cost_initialize", SimSettings.getInstance().getEdgeLookUpTable().get(number_of_edge_vms)[0]);
-				vmObj.put("cost_per_time", SimSettings.getInstance().getEdgeLookUpTable().get(number_of_edge_vms)[1]);
-				vmObj.put("legacy_tasks", SimLogger.getInstance().getVMMapTaskNumber(vmArray.get(vmIndex).getId()));
-
-				vmjsObj.put(Integer.toString(number_of_edge_vms), vmObj);
-				
 				number_of_edge_vms = number_of_edge_vms + 1;
 			}
 		}
@@ -393,62 +387,45 @@ public class LOTOSEdgeOrchestrator extends EdgeOrchestrator {
 		for(int hostIndex=0; hostIndex<numberOfCloudHost; hostIndex++){
 			List<CloudVM> vmArray = SimManager.getInstance().getCloudServerManager().getVmList(hostIndex);
 			for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
-				vmdictionary.put(Integer.toString(number_of_edge_vms + number_of_cloud_vms), vmArray.get(vmIndex));
-				typedictionary.put(Integer.toString(number_of_edge_vms + number_of_cloud_vms), SimSettings.CLOUD_DATACENTER_ID);
-
-				JSONObject vmObj = new JSONObject();
-				vmObj.put("vm_id", number_of_edge_vms + number_of_cloud_vms);
-				vm_feature = ((double)100 - vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock()));
-				vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-
-				vmObj.put("cpu_capacity", vm_feature);
-
-				CustomizedCloudletSchedulerTimeShared fuzzyCloudSched = (CustomizedCloudletSchedulerTimeShared)vmArray.get(vmIndex).getCloudletScheduler();
-
-				vm_feature = vmArray.get(vmIndex).getRam() - fuzzyCloudSched.getTotalUtilizationOfRam(CloudSim.clock());
-				vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-				vmObj.put("ram_capacity", vm_feature);
-
-
-				vmObj.put("cores", vmArray.get(vmIndex).getNumberOfPes());
-				vmObj.put("millions_of_instructions", vmArray.get(vmIndex).getMips());
-				vmObj.put("ap", -1);
-				vmObj.put("type", "Cloud");
-				vmObj.put("cost_initialize", SimSettings.getInstance().getCloudCostInit()[number_of_cloud_vms]);
-				vmObj.put("cost_per_time", SimSettings.getInstance().getCloudCostSec()[number_of_cloud_vms]);
-				vmObj.put("legacy_tasks", SimLogger.getInstance().getVMMapTaskNumber(vmArray.get(vmIndex).getId()));
-				
-				vmjsObj.put(Integer.toString(number_of_edge_vms + number_of_cloud_vms), vmObj);
+				CloudVM vm = vmArray.get(vmIndex);
+				CustomizedCloudletSchedulerTimeShared scheduler = (CustomizedCloudletSchedulerTimeShared)vm.getCloudletScheduler();
+
+				double cpu_capacity = (double)100 - scheduler.getTotalUtilizationOfCpu(CloudSim.clock());
+				double ram_capacity = vm.getRam() - scheduler.getTotalUtilizationOfRam(CloudSim.clock());
+
+				batch.setVm(number_of_edge_vms + number_of_cloud_vms,
+						vm,
+						SimSettings.CLOUD_DATACENTER_ID,
+						(cpu_capacity < 0) ? 0 : cpu_capacity,
+						(ram_capacity < 0) ? 0 : ram_capacity,
+						vm.getNumberOfPes(),
+						vm.getMips(),
+						-1,
+						true,
+						SimSettings.getInstance().getCloudCostInit()[number_of_cloud_vms],
+						SimSettings.getInstance().getCloudCostSec()[number_of_cloud_vms],
+						SimLogger.getInstance().getVMMapTaskNumber(vm.getId()));
 
 				number_of_cloud_vms = number_of_cloud_vms + 1;
 			}
 		}
 
-		vmTotalObj.put("vms", vmjsObj);
-		apTotalObj.put("aps", apjsObj);
+		/*Information about the man link*/
+		LOTOSExperimentalNetworkModel networkModel = LOTOSExperimentalNetworkModel.getInstance();
 
-		vm_feature = man_capacity - SimManager.getInstance().getNetworkModel().getManClients();
+		vm_feature = 1300*1024/mean_size - SimManager.getInstance().getNetworkModel().getManClients();
 		vm_feature = (vm_feature < 0) ? 0 : vm_feature;
-		apTotalObj.put("man_capacity", vm_feature);
-
-		try {
-			FileWriter vmjsFile = new FileWriter("solver_configs/_vms.json");
-			FileWriter apjsFile = new FileWriter("solver_configs/_aps.json");
 
-			vmjsFile.write(vmTotalObj.toString(4));
-			apjsFile.write(apTotalObj.toString(4));
+		batch.setMan(vm_feature,
+				networkModel.getNumOfDevices(),
+				networkModel.getPoissonDownload(),
+				networkModel.getPoissonUpload(),
+				networkModel.getavgManTaskInputSize(),
+				networkModel.getavgManTaskOutputSize(),
+				networkModel.getMANBand());
 
+		batch.setDelays(batchDelayModel.getBatchDelays(upload_sizes, download_sizes, tasks.size()));
 
-			vmjsFile.flush();
-			vmjsFile.close();
-
-
-			apjsFile.flush();
-			apjsFile.close();
-
-		} catch (IOException e) {
-    		e.printStackTrace();
-		}
-		return Arrays.asList(vmdictionary, typedictionary);	
+		return batch;
 	}
 }
@@ -15,15 +15,21 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.network.BatchDelayModel;
+import edu.boun.edgecloudsim.network.NetworkDelayMatrix;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.Location;
 import edu.boun.edgecloudsim.utils.SimLogger;
 
-public class LOTOSExperimentalNetworkModel extends NetworkModel {
+public class LOTOSExperimentalNetworkModel extends NetworkModel implements BatchDelayModel {
 	public static enum NETWORK_TYPE {WLAN, LAN};
 	public static enum LINK_TYPE {DOWNLOAD, UPLOAD};
 	public static double MAN_BW = 1300*1024; //Kbps
 
+	//propagation delays assumed by the LOTOS model (tools.py)
+	public static final double MAN_PROPAGATION_DELAY = 5; //seconds
+	public static final double WAN_PROPAGATION_DELAY = 0; //seconds
+
 	@SuppressWarnings("unused")
 	private int manClients;
 	private int[] wanClients;
@@ -453,6 +459,42 @@ public class LOTOSExperimentalNetworkModel extends NetworkModel {
 		numOfManTaskForUpload = 0;
 	}
 
+	/**
+	* wlan and wan delays follow the experimental bandwidth tables for the
+	* number of users of the link, the man delay is the M/M/1 delay of both
+	* directions plus the propagation delays. The M/M/1 model uses the poisson
+	* means and average task sizes of the man traffic, taken from the
+	* applications and refreshed by updateMM1QueeuModel, not the clients
+	* currently on the link
+	*/
+	@Override
+	public NetworkDelayMatrix getBatchDelays(double[] uploadSizes, double[] downloadSizes, int maxUsers) {
+		NetworkDelayMatrix matrix = new NetworkDelayMatrix(uploadSizes.length, maxUsers);
+
+		for(int task=0; task<uploadSizes.length; task++) {
+			double dataSize = uploadSizes[task] * 8 + downloadSizes[task] * 8; //KB to Kb
+
+			for(int users=1; users<=maxUsers; users++) {
+				double wlanBandwidth = (users <= experimentalWlanDelay.length) ? experimentalWlanDelay[users - 1] : 0;
+				double wanBandwidth = (users <= experimentalWanDelay.length) ? experimentalWanDelay[users - 1] : 0;
+
+				matrix.setWlanDelay(task, users, dataSize / (wlanBandwidth * 3)); //802.11ac is around 3 times faster than 802.11n
+				matrix.setWanDelay(task, users, dataSize / wanBandwidth + WAN_PROPAGATION_DELAY);
+			}
+		}
+
+		double lamda = 1 / ManPoissonMeanForDownload;
+		double mu = MAN_BW / (avgManTaskOutputSize * 8);
+		double manDelay = 1 / (mu - lamda * numberOfMobileDevices);
+
+		lamda = 1 / ManPoissonMeanForUpload;
+		mu = MAN_BW / (avgManTaskInputSize * 8);
+		manDelay += 1 / (mu - lamda * numberOfMobileDevices);
+
+		matrix.setManDelay(manDelay + 2 * MAN_PROPAGATION_DELAY);
+		return matrix;
+	}
+
 	public int getWanClients(int accessPoint){
 		return wanClients[accessPoint];
 	}
@@ -8,6 +8,12 @@
  * By default, DefaultMobileDeviceManager sends tasks to the edge servers or
  * cloud servers. If you want to use different topology, for example
  * MAN edge server, you should modify the flow defined in this class.
+ * With lotos_fast_path, tasks whose delay limit leaves less slack than
+ * fast_path_slack_threshold over the batch window skip the LOTOS batch
+ * solver and go to the least loaded VM of the edge host serving their
+ * access point. With lotos_stream_reservations, each periodic stream
+ * (AR video frames) is placed once on a reserved edge VM
+ * (LOTOSStreamReservation) and its frames skip the solver.
  * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
@@ -15,6 +21,7 @@
 
 package edu.boun.edgecloudsim.applications.lotos;
 
+import org.cloudbus.cloudsim.ResCloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 import org.cloudbus.cloudsim.Vm;
@@ -44,6 +51,8 @@ import edu.boun.edgecloudsim.utils.Decision;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 public class LOTOSMobileDeviceManager extends MobileDeviceManager {
 	private static final int BASE = 100000; //start from base in order not to conflict cloudsim tag!
@@ -59,6 +68,17 @@ public class LOTOSMobileDeviceManager extends MobileDeviceManager {
 	private static final double MM1_QUEUE_MODEL_UPDATE_INTEVAL = 5; //seconds
 	
 	private int taskIdCounter=0;
+
+	//edge host serving each access point, used by the fast path
+	private Map<Integer, Integer> hostOfAp = null;
+
+	//reserved VM of the periodic stream of each device and the shares reserved on each VM
+	private Map<Integer, LOTOSStreamReservation> reservations = new HashMap<Integer, LOTOSStreamReservation>();
+	private Map<Vm, Double> reservedCpu = new HashMap<Vm, Double>();
+	private Map<Vm, Double> reservedRam = new HashMap<Vm, Double>();
+	private int numOfReservations = 0;
+	private int numOfRenewedReservations = 0;
+	private int numOfRejectedFrames = 0;
 	
 	public LOTOSMobileDeviceManager() throws Exception{
 	}
@@ -316,6 +336,7 @@ public class LOTOSMobileDeviceManager extends MobileDeviceManager {
 					(int)task.getCloudletFileSize(),
 					(int)task.getCloudletOutputSize(),
 					edgeTask.getStartTime());
+			SimLogger.getInstance().setOrchestratorOverhead(task.getCloudletId(), edgeTask.getOrchestrationDelay() * 1e9);
 					
 			SimLogger.getInstance().rejectedBySolver(task.getCloudletId());
 		}else{
@@ -333,6 +354,7 @@ public class LOTOSMobileDeviceManager extends MobileDeviceManager {
 					(int)task.getCloudletFileSize(),
 					(int)task.getCloudletOutputSize(),
 					edgeTask.getStartTime());
+			SimLogger.getInstance().setOrchestratorOverhead(task.getCloudletId(), edgeTask.getOrchestrationDelay() * 1e9);
 
 			int nextHopId = tipo;
 			
@@ -434,12 +456,227 @@ public class LOTOSMobileDeviceManager extends MobileDeviceManager {
 			TaskProperty task = edgeTask.get(i);
 			tasks.add(task);
 		}
+		//a retried task was already counted by its first batch
+		for(int i=0; i< tasks.size(); i++){
+			if(tasks.get(i).getNumOfRetries() == 0)
+				SimLogger.getInstance().addDispatchLog(tasks.get(i).getTaskType(), tasks.get(i).getStartTime(), SimLogger.DISPATCH_TYPES.BATCH);
+		}
+
 		Decision nextHopId = SimManager.getInstance().getEdgeOrchestrator().chooseVmToOffload(tasks);
 
 		return nextHopId;
 
 	}
 	
+	@Override
+	public boolean isLatencyCritical(TaskProperty edgeTask, double batchWindow, double orchestrationDelay) {
+		//frames of periodic streams never wait for a batch
+		if(SimSettings.getInstance().isLotosStreamReservationEnabled() && edgeTask.isPeriodic())
+			return true;
+
+		if(!SimSettings.getInstance().isLotosFastPathEnabled())
+			return false;
+
+		//time left to the task once it has waited for the batch and the solver
+		double delayLimit = SimSettings.getInstance().getTaskLookUpTable()[edgeTask.getTaskType()][13];
+		double slack = delayLimit - batchWindow - orchestrationDelay;
+		return slack < SimSettings.getInstance().getFastPathSlackThreshold();
+	}
+
+	@Override
+	public void submitLatencyCriticalTask(TaskProperty edgeTask) {
+		if(hostOfAp == null){
+			hostOfAp = new HashMap<Integer, Integer>();
+			for(int hostIndex=0; hostIndex<SimSettings.getInstance().getNumOfEdgeHosts(); hostIndex++){
+				EdgeHost host = (EdgeHost)SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex).get(0).getHost();
+				hostOfAp.put(host.getLocation().getServingWlanId(), hostIndex);
+			}
+		}
+
+		Location currentLocation = SimManager.getInstance().getMobilityModel().
+				getLocation(edgeTask.getMobileDeviceId(), CloudSim.clock());
+		Integer hostIndex = hostOfAp.get(currentLocation.getServingWlanId());
+
+		//the task is only used to predict the cpu utilization
+		CpuUtilizationModel_Custom utilizationModelCPU = new CpuUtilizationModel_Custom();
+		Task probe = new Task(edgeTask.getMobileDeviceId(), -1, edgeTask.getLength(), edgeTask.getPesNumber(),
+				edgeTask.getInputFileSize(), edgeTask.getOutputFileSize(),
+				utilizationModelCPU, new UtilizationModelFull(), new UtilizationModelFull());
+		probe.setTaskType(edgeTask.getTaskType());
+		utilizationModelCPU.setTask(probe);
+
+		if(SimSettings.getInstance().isLotosStreamReservationEnabled() && edgeTask.isPeriodic()){
+			submitReservedTask(edgeTask, probe, hostIndex, currentLocation.getServingWlanId());
+			return;
+		}
+
+		SimLogger.getInstance().addDispatchLog(edgeTask.getTaskType(), edgeTask.getStartTime(), SimLogger.DISPATCH_TYPES.FAST_PATH);
+
+		Vm selectedVM = (hostIndex == null) ? null : chooseLocalVm(probe, hostIndex);
+		if(selectedVM == null){
+			rejectTask(edgeTask);
+			return;
+		}
+
+		submitTask(edgeTask, selectedVM, hostIndex);
+	}
+
+	/*
+	 * sends the frame to the VM reserved for the stream of the device, the
+	 * stream is placed again if the device moved to another access point
+	 * or the reserved VM cannot take the frame anymore
+	 */
+	private void submitReservedTask(TaskProperty edgeTask, Task probe, Integer hostIndex, int servingWlanId) {
+		SimLogger.getInstance().addDispatchLog(edgeTask.getTaskType(), edgeTask.getStartTime(), SimLogger.DISPATCH_TYPES.RESERVATION);
+
+		LOTOSStreamReservation reservation = reservations.get(edgeTask.getMobileDeviceId());
+		if(reservation != null){
+			Vm vm = reservation.getVm();
+			double requiredCapacity = ((CpuUtilizationModel_Custom)probe.getUtilizationModelCpu()).predictUtilization(((EdgeVM)vm).getVmType());
+			double targetVmCapacity = (double)100 - vm.getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+
+			if(reservation.getServingWlanId() != servingWlanId || requiredCapacity > targetVmCapacity){
+				release(edgeTask.getMobileDeviceId());
+				reservation = null;
+				numOfRenewedReservations++;
+			}
+		}
+
+		if(reservation == null && hostIndex != null){
+			Vm vm = chooseLocalVm(probe, hostIndex);
+			if(vm != null){
+				double cpuShare = ((CpuUtilizationModel_Custom)probe.getUtilizationModelCpu()).predictUtilization(((EdgeVM)vm).getVmType());
+				double ramShare = SimSettings.getInstance().getTaskLookUpTable()[edgeTask.getTaskType()][14];
+				reservation = new LOTOSStreamReservation(vm, hostIndex, servingWlanId, cpuShare, ramShare);
+				reservations.put(edgeTask.getMobileDeviceId(), reservation);
+				reservedCpu.merge(vm, cpuShare, Double::sum);
+				reservedRam.merge(vm, ramShare, Double::sum);
+				numOfReservations++;
+			}
+		}
+
+		if(reservation == null){
+			numOfRejectedFrames++;
+			rejectTask(edgeTask);
+			return;
+		}
+
+		submitTask(edgeTask, reservation.getVm(), reservation.getHostIndex());
+	}
+
+	private void release(int deviceId) {
+		LOTOSStreamReservation reservation = reservations.remove(deviceId);
+		if(reservation != null){
+			reservedCpu.merge(reservation.getVm(), -reservation.getCpuShare(), Double::sum);
+			reservedRam.merge(reservation.getVm(), -reservation.getRamShare(), Double::sum);
+		}
+	}
+
+	/*
+	 * least loaded VM of the edge host, the cpu reserved for streams and
+	 * not used by their running frames is not available to other tasks
+	 */
+	private Vm chooseLocalVm(Task probe, int hostIndex) {
+		Vm selectedVM = null;
+		double selectedVmCapacity = 0; //start with min value
+		List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(hostIndex);
+		for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
+			double requiredCapacity = ((CpuUtilizationModel_Custom)probe.getUtilizationModelCpu()).predictUtilization(vmArray.get(vmIndex).getVmType());
+			double targetVmCapacity = (double)100 - vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock())
+					- getUnusedReservedCpu(vmArray.get(vmIndex));
+			if(requiredCapacity <= targetVmCapacity && targetVmCapacity > selectedVmCapacity){
+				selectedVM = vmArray.get(vmIndex);
+				selectedVmCapacity = targetVmCapacity;
+			}
+		}
+		return selectedVM;
+	}
+
+	/*
+	 * returns the cpu (percent) reserved on the VM for periodic streams
+	 */
+	public double getReservedCpu(Vm vm) {
+		return reservedCpu.getOrDefault(vm, 0.0);
+	}
+
+	/*
+	 * returns the ram (MB) reserved on the VM for periodic streams
+	 */
+	public double getReservedRam(Vm vm) {
+		return reservedRam.getOrDefault(vm, 0.0);
+	}
+
+	/*
+	 * returns the cpu (percent) reserved on the VM for periodic streams and
+	 * not used by their frames, the frames running on the VM are already in
+	 * its utilization so only the rest of the share of each stream is counted
+	 */
+	public double getUnusedReservedCpu(Vm vm) {
+		if(getReservedCpu(vm) <= 0)
+			return 0;
+
+		double unused = 0;
+		List<ResCloudlet> execList = vm.getCloudletScheduler().getCloudletExecList();
+		for(Map.Entry<Integer, LOTOSStreamReservation> entry : reservations.entrySet()){
+			if(entry.getValue().getVm() != vm)
+				continue;
+			double inFlight = 0;
+			for(ResCloudlet rcl : execList){
+				if(((Task)rcl.getCloudlet()).getMobileDeviceId() == entry.getKey())
+					inFlight += rcl.getCloudlet().getUtilizationOfCpu(CloudSim.clock());
+			}
+			unused += Math.max(0, entry.getValue().getCpuShare() - inFlight);
+		}
+		return unused;
+	}
+
+	/*
+	 * returns the ram (MB) reserved on the VM for periodic streams and not
+	 * used by their frames, the scheduler counts the ram of a device once
+	 * however many of its frames run on the VM
+	 */
+	public double getUnusedReservedRam(Vm vm) {
+		if(getReservedRam(vm) <= 0)
+			return 0;
+
+		double unused = 0;
+		List<ResCloudlet> execList = vm.getCloudletScheduler().getCloudletExecList();
+		for(Map.Entry<Integer, LOTOSStreamReservation> entry : reservations.entrySet()){
+			if(entry.getValue().getVm() != vm)
+				continue;
+			double inFlight = 0;
+			for(ResCloudlet rcl : execList){
+				if(((Task)rcl.getCloudlet()).getMobileDeviceId() == entry.getKey()){
+					inFlight = rcl.getCloudlet().getUtilizationOfRam(CloudSim.clock());
+					break;
+				}
+			}
+			unused += Math.max(0, entry.getValue().getRamShare() - inFlight);
+		}
+		return unused;
+	}
+
+	private void rejectTask(TaskProperty edgeTask) {
+		Task task = createTask(edgeTask);
+		SimLogger.getInstance().addLog(task.getMobileDeviceId(),
+				task.getCloudletId(),
+				task.getTaskType(),
+				(int)task.getCloudletLength(),
+				(int)task.getCloudletFileSize(),
+				(int)task.getCloudletOutputSize(),
+				edgeTask.getStartTime());
+		SimLogger.getInstance().rejectedDueToVMCapacity(task.getCloudletId(), CloudSim.clock(), SimSettings.VM_TYPES.EDGE_VM.ordinal());
+	}
+
+	@Override
+	public void shutdownEntity() {
+		super.shutdownEntity();
+
+		if(numOfReservations > 0)
+			SimLogger.printLine("Stream reservations: " + numOfReservations + " placed, " + numOfRenewedReservations +
+					" renewed on handover or capacity change, " + numOfRejectedFrames + " frames without a reserved VM");
+	}
+
 	public void submitTask(TaskProperty edgeTask) {
 		int vmType=0;
 		int nextEvent=0;
@@ -0,0 +1,262 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Solver Process
+ *
+ * Description:
+ * LOTOSSolverProcess keeps a single python solver worker alive during
+ * the simulation. The worker imports docplex and the configuration
+ * generator once and then serves one BATCH request per batch. A request
+ * is a header line followed by the binary LOTOSBatch snapshot and the
+ * reply is a single line with the VM of each task. If the worker dies it
+ * is restarted and the crash is reported. The time budget of the batch
+ * is passed to CPLEX, a worker that does not reply within the budget
+ * (plus a grace period to build the model) is killed. In the COMPARE
+ * objective mode the worker solves the batch with both the two stage
+ * and the weighted objective and appends an A/B report to the reply.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class LOTOSSolverProcess {
+	public static final String SOLVER_FOLDER = "../../src/edu/boun/edgecloudsim/applications/lotos/LOTOS/";
+	private static final String SOLVER_WORKER = SOLVER_FOLDER + "solver_worker.py";
+	private static final double SOLVER_GRACE_PERIOD = 5; //seconds
+
+	private String instance;
+	private String objectiveMode;
+	private Process process;
+	private OutputStream toWorker;
+	private BufferedReader fromWorker;
+	private boolean timedOut;
+
+	private int numOfRequests;
+	private int numOfFailedRequests;
+	private int numOfCrashes;
+	private int numOfTimeouts;
+	private int numOfUnsolvedRequests;
+	private double totalSolverTime;
+
+	//A/B report of the COMPARE objective mode
+	private int numOfComparedBatches;
+	private int numOfMatchingBatches;
+	private double totalTwoStageTime;
+	private double totalWeightedTime;
+
+	public LOTOSSolverProcess(String _instance) {
+		instance = _instance;
+		objectiveMode = SimSettings.getInstance().getLotosObjectiveMode();
+		numOfRequests = 0;
+		numOfFailedRequests = 0;
+		numOfCrashes = 0;
+		numOfTimeouts = 0;
+		numOfUnsolvedRequests = 0;
+		totalSolverTime = 0;
+		numOfComparedBatches = 0;
+		numOfMatchingBatches = 0;
+		totalTwoStageTime = 0;
+		totalWeightedTime = 0;
+	}
+
+	public boolean isAlive() {
+		return process != null && process.isAlive();
+	}
+
+	/*
+	 * starts the worker and waits until docplex is loaded
+	 */
+	public boolean start() {
+		if(isAlive())
+			return true;
+
+		try {
+			process = new ProcessBuilder("python3", "-u", SOLVER_WORKER)
+					.redirectError(ProcessBuilder.Redirect.INHERIT)
+					.start();
+			toWorker = new BufferedOutputStream(process.getOutputStream());
+			fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+			String line = fromWorker.readLine();
+			if(line != null && line.equals("READY"))
+				return true;
+
+			SimLogger.printLine("Solver worker could not be started! (" + line + ")");
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		destroy();
+		return false;
+	}
+
+	/*
+	 * solves the binary batch snapshot, the worker also writes its json
+	 * files when dump is set. returns the VM of each task (-1 if rejected)
+	 * or null if the worker could not provide a solution within the
+	 * time budget (seconds, 0 means no limit)
+	 */
+	public int[] solve(byte[] batch, int numOfTasks, boolean dump, double timeBudget) {
+		numOfRequests++;
+
+		long deadline = 0;
+		if(timeBudget > 0)
+			deadline = System.nanoTime() + (long)((timeBudget + SOLVER_GRACE_PERIOD) * 1e9);
+
+		String header = "BATCH " + instance + " " + batch.length + " " + (dump ? "1" : "0") + " " + timeBudget + " " + objectiveMode;
+		String response = request(header, batch, deadline);
+		if(timedOut) {
+			numOfTimeouts++;
+			SimLogger.printLine("Solver worker exceeded the time budget, restarting...");
+			destroy();
+			return null;
+		}
+		if(response == null) {
+			//the worker is dead, restart it and try once more
+			numOfCrashes++;
+			SimLogger.printLine("Solver worker crashed (exit code: " + exitValue() + "), restarting...");
+			destroy();
+			response = request(header, batch, deadline);
+		}
+
+		if(response != null && response.startsWith("NONE ")) {
+			//no incumbent within the time budget
+			numOfUnsolvedRequests++;
+			return null;
+		}
+
+		if(response != null && response.startsWith("OK ")) {
+			String[] fields = response.split(" ");
+			boolean compared = fields.length == numOfTasks + 7 && fields[numOfTasks + 3].equals("AB");
+			if((fields.length == numOfTasks + 3 || compared) && Integer.parseInt(fields[2]) == numOfTasks) {
+				totalSolverTime += Double.parseDouble(fields[1]);
+				if(compared) {
+					numOfComparedBatches++;
+					if(fields[numOfTasks + 4].equals("1"))
+						numOfMatchingBatches++;
+					totalTwoStageTime += Double.parseDouble(fields[numOfTasks + 5]);
+					totalWeightedTime += Double.parseDouble(fields[numOfTasks + 6]);
+				}
+				int[] result = new int[numOfTasks];
+				for(int i=0; i<numOfTasks; i++)
+					result[i] = Integer.parseInt(fields[i + 3]);
+				return result;
+			}
+		}
+
+		numOfFailedRequests++;
+		if(timedOut) {
+			numOfTimeouts++;
+			SimLogger.printLine("Solver worker exceeded the time budget, restarting...");
+			destroy();
+		}
+		else if(response == null) {
+			numOfCrashes++;
+			SimLogger.printLine("Solver worker crashed again, batch is rejected!");
+			destroy();
+		}
+		else {
+			SimLogger.printLine("Solver worker returned an error: " + response);
+		}
+		return null;
+	}
+
+	public void shutdown() {
+		if(isAlive()) {
+			request("QUIT", null, 0);
+			try {
+				process.waitFor();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		destroy();
+
+		if(numOfRequests > 0) {
+			SimLogger.printLine("Solver worker: " + numOfRequests + " batches, " + numOfFailedRequests + " failed, " +
+					numOfTimeouts + " timeouts, " + numOfUnsolvedRequests + " without solution, " +
+					numOfCrashes + " crashes, " + String.format("%.3f", totalSolverTime) + " seconds in solver");
+		}
+		if(numOfComparedBatches > 0) {
+			SimLogger.printLine("Objective A/B: " + numOfMatchingBatches + " of " + numOfComparedBatches +
+					" batches with the same accepted tasks and cost, " + String.format("%.3f", totalTwoStageTime) +
+					" seconds two stage vs " + String.format("%.3f", totalWeightedTime) + " seconds weighted");
+		}
+	}
+
+	public int getNumOfRequests() {
+		return numOfRequests;
+	}
+
+	public int getNumOfFailedRequests() {
+		return numOfFailedRequests;
+	}
+
+	public int getNumOfCrashes() {
+		return numOfCrashes;
+	}
+
+	public int getNumOfTimeouts() {
+		return numOfTimeouts;
+	}
+
+	/*
+	 * sends the request and waits for the reply until the deadline
+	 * (System.nanoTime, 0 means no limit)
+	 */
+	private String request(String header, byte[] payload, long deadline) {
+		timedOut = false;
+		if(!isAlive() && !start())
+			return null;
+
+		try {
+			toWorker.write((header + "\n").getBytes(StandardCharsets.UTF_8));
+			if(payload != null)
+				toWorker.write(payload);
+			toWorker.flush();
+
+			while(deadline > 0 && !fromWorker.ready() && process.isAlive()) {
+				if(System.nanoTime() > deadline) {
+					timedOut = true;
+					return null;
+				}
+				Thread.sleep(1);
+			}
+			return fromWorker.readLine();
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	private String exitValue() {
+		if(process == null)
+			return "-";
+		try {
+			process.waitFor();
+			return Integer.toString(process.exitValue());
+		} catch (InterruptedException e) {
+			return "-";
+		}
+	}
+
+	private void destroy() {
+		if(process != null) {
+			process.destroy();
+			process = null;
+		}
+		toWorker = null;
+		fromWorker = null;
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Title:        EdgeCloudSim - LOTOS Stream Reservation
+ *
+ * Description:
+ * LOTOSStreamReservation keeps the edge VM reserved for the periodic
+ * stream of a mobile device together with the cpu and ram share of one
+ * frame and the access point the device was served by when the stream
+ * was placed. The frames of the stream go straight to the reserved VM
+ * until the device moves to another access point or the VM cannot take
+ * a frame anymore.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+import org.cloudbus.cloudsim.Vm;
+
+public class LOTOSStreamReservation {
+	private Vm vm;
+	private int hostIndex;
+	private int servingWlanId;
+	private double cpuShare; //percent of the VM
+	private double ramShare; //MB
+
+	public LOTOSStreamReservation(Vm _vm, int _hostIndex, int _servingWlanId, double _cpuShare, double _ramShare) {
+		vm = _vm;
+		hostIndex = _hostIndex;
+		servingWlanId = _servingWlanId;
+		cpuShare = _cpuShare;
+		ramShare = _ramShare;
+	}
+
+	public Vm getVm() {
+		return vm;
+	}
+
+	public int getHostIndex() {
+		return hostIndex;
+	}
+
+	public int getServingWlanId() {
+		return servingWlanId;
+	}
+
+	public double getCpuShare() {
+		return cpuShare;
+	}
+
+	public double getRamShare() {
+		return ramShare;
+	}
+}
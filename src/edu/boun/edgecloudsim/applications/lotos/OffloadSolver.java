@@ -0,0 +1,29 @@
+/*
+ * Title:        EdgeCloudSim - Offload Solver
+ *
+ * Description:
+ * OffloadSolver is the interface between LOTOSEdgeOrchestrator and the
+ * optimization model deciding which VM serves each task of a batch.
+ * Solvers keep to the solver_time_budget of each batch and return the
+ * best decision found so far when it expires.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.applications.lotos;
+
+public interface OffloadSolver {
+	/*
+	 * returns the VM row of the batch selected for each task,
+	 * -1 if the task is rejected, or null if the solver has no
+	 * decision for the batch (the orchestrator then falls back to
+	 * the least loaded VMs)
+	 */
+	public int[] solve(LOTOSBatch batch);
+
+	/*
+	 * releases the resources of the solver at the end of the simulation
+	 */
+	public void shutdown();
+}
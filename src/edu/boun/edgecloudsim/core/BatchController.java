@@ -0,0 +1,126 @@
+/*
+ * Title:        EdgeCloudSim - Batch Controller
+ *
+ * Description:
+ * BatchController gives the size and the time window of the next batch
+ * sent to the LOTOS solver. With adaptive batching it updates both after
+ * each batch: a solver slower than target_solver_latency halves the size,
+ * batches filled before their window grow it by one task and half empty
+ * batches shrink it. Tasks waiting in the batch for a large share of
+ * their delay limit (applications.xml) halve the window, short waits let
+ * it grow again. Both values are kept within the configured bounds.
+ * Without adaptive batching the fixed values of the config file are used.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.util.List;
+
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.TaskProperty;
+
+public class BatchController {
+	//share of the delay limit a task may spend waiting for its batch
+	private static final double WAITING_SHARE = 0.25;
+	private static final int WINDOW_STEPS = 10;
+
+	private boolean adaptive;
+	private int batchSize;
+	private double timeWindow;
+	private int minBatchSize;
+	private int maxBatchSize;
+	private double minTimeWindow;
+	private double maxTimeWindow;
+	private double targetLatency;
+
+	private int numOfBatches;
+	private long totalBatchSize;
+	private double totalTimeWindow;
+	private int numOfSlowBatches;
+	private int numOfLateBatches;
+
+	public BatchController() {
+		SimSettings SS = SimSettings.getInstance();
+		adaptive = SS.isAdaptiveBatchingEnabled();
+		batchSize = SS.getNumberOfTasksSendToSolver();
+		timeWindow = SS.getBatchTimestampLimit();
+		minBatchSize = Math.max(1, Math.min(SS.getMinTasksSendToSolver(), batchSize));
+		maxBatchSize = Math.max(SS.getMaxTasksSendToSolver(), batchSize);
+		minTimeWindow = Math.min(SS.getMinBatchTimestampLimit(), timeWindow);
+		maxTimeWindow = Math.max(SS.getMaxBatchTimestampLimit(), timeWindow);
+		targetLatency = SS.getTargetSolverLatency();
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public double getTimeWindow() {
+		return timeWindow;
+	}
+
+	/*
+	 * feeds back a solved batch: the simulation time it was sent to the
+	 * solver, the wall clock latency of the solver (seconds) and whether
+	 * it was closed by the batch size rather than by the time window
+	 */
+	public void update(List<TaskProperty> batch, double sendTime, double solverLatency, boolean closedBySize) {
+		//retried tasks do not count for the size, like in SimManager.scheduleNextBatch
+		int numOfNewTasks = 0;
+		for(TaskProperty task : batch) {
+			if(task.getNumOfRetries() == 0)
+				numOfNewTasks++;
+		}
+
+		numOfBatches++;
+		totalBatchSize += numOfNewTasks;
+		totalTimeWindow += timeWindow;
+
+		if(!adaptive)
+			return;
+
+		//queueing delay of the tasks against their tightest delay limit
+		double maxWaitingTime = 0;
+		double minDelayLimit = Double.MAX_VALUE;
+		for(TaskProperty task : batch) {
+			//retried tasks waited for an earlier batch, not for this window
+			if(task.getNumOfRetries() > 0)
+				continue;
+			maxWaitingTime = Math.max(maxWaitingTime, sendTime - task.getStartTime());
+			minDelayLimit = Math.min(minDelayLimit, SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()][13]);
+		}
+		double waitingRatio = (minDelayLimit > 0) ? maxWaitingTime / minDelayLimit : 0;
+
+		if(solverLatency > targetLatency) {
+			numOfSlowBatches++;
+			batchSize = Math.max(minBatchSize, batchSize / 2);
+		}
+		else if(closedBySize) {
+			batchSize = Math.min(maxBatchSize, batchSize + 1);
+		}
+		else if(numOfNewTasks < batchSize / 2) {
+			batchSize = Math.max(minBatchSize, batchSize - 1);
+		}
+
+		if(waitingRatio > WAITING_SHARE) {
+			numOfLateBatches++;
+			timeWindow = Math.max(minTimeWindow, timeWindow / 2);
+		}
+		else if(waitingRatio < WAITING_SHARE / 2) {
+			timeWindow = Math.min(maxTimeWindow, timeWindow + (maxTimeWindow - minTimeWindow) / WINDOW_STEPS);
+		}
+	}
+
+	public void printStatistics() {
+		if(!adaptive || numOfBatches == 0)
+			return;
+
+		SimLogger.printLine("Adaptive batching: " + numOfBatches + " batches, " +
+				String.format("%.2f", (double)totalBatchSize / numOfBatches) + " tasks and " +
+				String.format("%.2f", totalTimeWindow / numOfBatches) + " ms window on average, " +
+				numOfSlowBatches + " slow solver batches, " + numOfLateBatches + " late batches");
+	}
+}
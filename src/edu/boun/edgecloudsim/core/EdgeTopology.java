@@ -0,0 +1,270 @@
+/*
+ * Title:        EdgeCloudSim - Edge Topology
+ *
+ * Description:
+ * EdgeTopology holds the edge datacenters, hosts and VMs of
+ * edge_devices.xml in primitive tables. SimSettings builds it once when
+ * the xml file is parsed and the other components read it instead of
+ * walking the DOM again. Hosts and VMs are numbered in the order of the
+ * file, which is also the order of the host and VM ids; the hosts of a
+ * datacenter and the VMs of a host are consecutive. The topology is not
+ * changed after it is built, so it can be read from any thread.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import edu.boun.edgecloudsim.utils.Location;
+
+public class EdgeTopology {
+	//datacenters
+	private final String[] datacenterArch;
+	private final String[] datacenterOs;
+	private final String[] datacenterVmm;
+	private final double[] datacenterCostPerBw;
+	private final double[] datacenterCostPerSec;
+	private final double[] datacenterCostPerMem;
+	private final double[] datacenterCostPerStorage;
+	private final Location[] datacenterLocation;
+	private final int[] firstHostOfDatacenter; //hosts of datacenter d are firstHostOfDatacenter[d] .. firstHostOfDatacenter[d+1]-1
+
+	//hosts
+	private final int[] hostDatacenter;
+	private final int[] hostCores;
+	private final double[] hostMips;
+	private final int[] hostRam;
+	private final long[] hostStorage;
+	private final int[] firstVmOfHost; //VMs of host h are firstVmOfHost[h] .. firstVmOfHost[h+1]-1
+
+	//VMs
+	private final int[] vmHost;
+	private final String[] vmVmm;
+	private final int[] vmCores;
+	private final double[] vmMips;
+	private final int[] vmRam;
+	private final long[] vmStorage;
+	private final double[] vmInitializationCost;
+	private final double[] vmCostPerSec;
+
+	/*
+	 * builds the topology from the parsed edge_devices.xml, the document
+	 * is expected to be validated by SimSettings
+	 */
+	public EdgeTopology(Document doc) {
+		NodeList datacenterList = doc.getElementsByTagName("datacenter");
+		int numOfDatacenters = datacenterList.getLength();
+		int numOfHosts = doc.getElementsByTagName("host").getLength();
+		int numOfVms = doc.getElementsByTagName("VM").getLength();
+
+		datacenterArch = new String[numOfDatacenters];
+		datacenterOs = new String[numOfDatacenters];
+		datacenterVmm = new String[numOfDatacenters];
+		datacenterCostPerBw = new double[numOfDatacenters];
+		datacenterCostPerSec = new double[numOfDatacenters];
+		datacenterCostPerMem = new double[numOfDatacenters];
+		datacenterCostPerStorage = new double[numOfDatacenters];
+		datacenterLocation = new Location[numOfDatacenters];
+		firstHostOfDatacenter = new int[numOfDatacenters + 1];
+
+		hostDatacenter = new int[numOfHosts];
+		hostCores = new int[numOfHosts];
+		hostMips = new double[numOfHosts];
+		hostRam = new int[numOfHosts];
+		hostStorage = new long[numOfHosts];
+		firstVmOfHost = new int[numOfHosts + 1];
+
+		vmHost = new int[numOfVms];
+		vmVmm = new String[numOfVms];
+		vmCores = new int[numOfVms];
+		vmMips = new double[numOfVms];
+		vmRam = new int[numOfVms];
+		vmStorage = new long[numOfVms];
+		vmInitializationCost = new double[numOfVms];
+		vmCostPerSec = new double[numOfVms];
+
+		int host = 0;
+		int vm = 0;
+		for (int i = 0; i < numOfDatacenters; i++) {
+			Element datacenterElement = (Element) datacenterList.item(i);
+			datacenterArch[i] = datacenterElement.getAttribute("arch");
+			datacenterOs[i] = datacenterElement.getAttribute("os");
+			datacenterVmm[i] = datacenterElement.getAttribute("vmm");
+			datacenterCostPerBw[i] = Double.parseDouble(getText(datacenterElement, "costPerBw"));
+			datacenterCostPerSec[i] = Double.parseDouble(getText(datacenterElement, "costPerSec"));
+			datacenterCostPerMem[i] = Double.parseDouble(getText(datacenterElement, "costPerMem"));
+			datacenterCostPerStorage[i] = Double.parseDouble(getText(datacenterElement, "costPerStorage"));
+
+			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
+			datacenterLocation[i] = new Location(
+					Integer.parseInt(getText(location, "attractiveness")),
+					Integer.parseInt(getText(location, "wlan_id")),
+					Integer.parseInt(getText(location, "x_pos")),
+					Integer.parseInt(getText(location, "y_pos")));
+
+			firstHostOfDatacenter[i] = host;
+			NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
+			for (int j = 0; j < hostNodeList.getLength(); j++) {
+				Element hostElement = (Element) hostNodeList.item(j);
+				hostDatacenter[host] = i;
+				hostCores[host] = Integer.parseInt(getText(hostElement, "core"));
+				hostMips[host] = Double.parseDouble(getText(hostElement, "mips"));
+				hostRam[host] = Integer.parseInt(getText(hostElement, "ram"));
+				hostStorage[host] = Long.parseLong(getText(hostElement, "storage"));
+
+				firstVmOfHost[host] = vm;
+				NodeList vmNodeList = hostElement.getElementsByTagName("VM");
+				for (int k = 0; k < vmNodeList.getLength(); k++) {
+					Element vmElement = (Element) vmNodeList.item(k);
+					vmHost[vm] = host;
+					vmVmm[vm] = vmElement.getAttribute("vmm");
+					vmCores[vm] = Integer.parseInt(getText(vmElement, "core"));
+					vmMips[vm] = Double.parseDouble(getText(vmElement, "mips"));
+					vmRam[vm] = Integer.parseInt(getText(vmElement, "ram"));
+					vmStorage[vm] = Long.parseLong(getText(vmElement, "storage"));
+
+					//the costs are optional for the AI_BASED policy
+					if(vmElement.getElementsByTagName("initialization_cost").getLength() > 0)
+						vmInitializationCost[vm] = Double.parseDouble(getText(vmElement, "initialization_cost"));
+					if(vmElement.getElementsByTagName("costPerSec").getLength() > 0)
+						vmCostPerSec[vm] = Double.parseDouble(getText(vmElement, "costPerSec"));
+					vm++;
+				}
+				host++;
+			}
+		}
+		firstHostOfDatacenter[numOfDatacenters] = host;
+		firstVmOfHost[numOfHosts] = vm;
+	}
+
+	public int getNumOfDatacenters() {
+		return datacenterLocation.length;
+	}
+
+	public int getNumOfHosts() {
+		return hostDatacenter.length;
+	}
+
+	public int getNumOfVms() {
+		return vmHost.length;
+	}
+
+	public String getDatacenterArch(int datacenter) {
+		return datacenterArch[datacenter];
+	}
+
+	public String getDatacenterOs(int datacenter) {
+		return datacenterOs[datacenter];
+	}
+
+	public String getDatacenterVmm(int datacenter) {
+		return datacenterVmm[datacenter];
+	}
+
+	public double getDatacenterCostPerBw(int datacenter) {
+		return datacenterCostPerBw[datacenter];
+	}
+
+	public double getDatacenterCostPerSec(int datacenter) {
+		return datacenterCostPerSec[datacenter];
+	}
+
+	public double getDatacenterCostPerMem(int datacenter) {
+		return datacenterCostPerMem[datacenter];
+	}
+
+	public double getDatacenterCostPerStorage(int datacenter) {
+		return datacenterCostPerStorage[datacenter];
+	}
+
+	/*
+	 * location of the access point of the datacenter, shared by all users
+	 */
+	public Location getDatacenterLocation(int datacenter) {
+		return datacenterLocation[datacenter];
+	}
+
+	public int getFirstHostOfDatacenter(int datacenter) {
+		return firstHostOfDatacenter[datacenter];
+	}
+
+	public int getNumOfHostsOfDatacenter(int datacenter) {
+		return firstHostOfDatacenter[datacenter + 1] - firstHostOfDatacenter[datacenter];
+	}
+
+	public int getHostDatacenter(int host) {
+		return hostDatacenter[host];
+	}
+
+	/*
+	 * index of the host among the hosts of its datacenter
+	 */
+	public int getHostIndexInDatacenter(int host) {
+		return host - firstHostOfDatacenter[hostDatacenter[host]];
+	}
+
+	public int getHostCores(int host) {
+		return hostCores[host];
+	}
+
+	public double getHostMips(int host) {
+		return hostMips[host];
+	}
+
+	public int getHostRam(int host) {
+		return hostRam[host];
+	}
+
+	public long getHostStorage(int host) {
+		return hostStorage[host];
+	}
+
+	public int getFirstVmOfHost(int host) {
+		return firstVmOfHost[host];
+	}
+
+	public int getNumOfVmsOfHost(int host) {
+		return firstVmOfHost[host + 1] - firstVmOfHost[host];
+	}
+
+	public int getVmHost(int vm) {
+		return vmHost[vm];
+	}
+
+	public String getVmVmm(int vm) {
+		return vmVmm[vm];
+	}
+
+	public int getVmCores(int vm) {
+		return vmCores[vm];
+	}
+
+	public double getVmMips(int vm) {
+		return vmMips[vm];
+	}
+
+	public int getVmRam(int vm) {
+		return vmRam[vm];
+	}
+
+	public long getVmStorage(int vm) {
+		return vmStorage[vm];
+	}
+
+	public double getVmInitializationCost(int vm) {
+		return vmInitializationCost[vm];
+	}
+
+	public double getVmCostPerSec(int vm) {
+		return vmCostPerSec[vm];
+	}
+
+	private static String getText(Element element, String tag) {
+		return element.getElementsByTagName(tag).item(0).getTextContent();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Title:        EdgeCloudSim - Orchestration Latency Model
+ *
+ * Description:
+ * OrchestrationLatencyModel gives the simulation time a batch spends in
+ * the LOTOS orchestrator before its tasks are dispatched. In the MEASURED
+ * mode it is the wall clock time of the solve, in the MODEL mode it is
+ * lotos_orchestration_latency_base plus lotos_orchestration_latency_per_task
+ * times the batch size, and it is zero in the NONE mode. The measured
+ * times of all batches are fitted to the same linear model by least
+ * squares so that the parameters of a MEASURED run can be reused by the
+ * deterministic MODEL mode. The model works in seconds, SimManager
+ * converts the delay to the simulation clock (milliseconds).
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class OrchestrationLatencyModel {
+	public static final double SIMULATION_TIME_PER_SECOND = 1000; //the simulation clock runs in milliseconds
+
+	private String mode;
+	private double base; //seconds
+	private double perTask; //seconds
+
+	//least squares sums of the measured latency against the batch size
+	private int numOfBatches;
+	private double sumOfSizes;
+	private double sumOfLatencies;
+	private double sumOfSquaredSizes;
+	private double sumOfProducts;
+	private double totalDelay;
+
+	public OrchestrationLatencyModel() {
+		mode = SimSettings.getInstance().getLotosOrchestrationLatency();
+		base = SimSettings.getInstance().getLotosOrchestrationLatencyBase();
+		perTask = SimSettings.getInstance().getLotosOrchestrationLatencyPerTask();
+
+		if(!mode.equals("NONE") && !mode.equals("MEASURED") && !mode.equals("MODEL")) {
+			SimLogger.printLine("Unknown orchestration latency mode " + mode + ", NONE is used!");
+			mode = "NONE";
+		}
+	}
+
+	/*
+	 * returns the delay (seconds) of a batch of the given size whose
+	 * solve took the measured wall clock time (seconds)
+	 */
+	public double getDelay(int batchSize, double measuredLatency) {
+		numOfBatches++;
+		sumOfSizes += batchSize;
+		sumOfLatencies += measuredLatency;
+		sumOfSquaredSizes += (double)batchSize * batchSize;
+		sumOfProducts += batchSize * measuredLatency;
+
+		double delay = 0;
+		if(mode.equals("MEASURED"))
+			delay = measuredLatency;
+		else if(mode.equals("MODEL"))
+			delay = base + perTask * batchSize;
+
+		totalDelay += delay;
+		return delay;
+	}
+
+	/*
+	 * returns the delay (seconds) expected for the next batch: the mean
+	 * delay of the batches so far, the base delay of the MODEL mode before
+	 * the first batch
+	 */
+	public double getExpectedDelay() {
+		if(numOfBatches == 0)
+			return mode.equals("MODEL") ? base : 0;
+		return totalDelay / numOfBatches;
+	}
+
+	public void printStatistics() {
+		if(numOfBatches == 0)
+			return;
+
+		double fittedPerTask = 0;
+		double denominator = numOfBatches * sumOfSquaredSizes - sumOfSizes * sumOfSizes;
+		if(denominator > 0)
+			fittedPerTask = (numOfBatches * sumOfProducts - sumOfSizes * sumOfLatencies) / denominator;
+		double fittedBase = (sumOfLatencies - fittedPerTask * sumOfSizes) / numOfBatches;
+
+		SimLogger.printLine("Orchestration latency (" + mode + "): " +
+				String.format("%.6f", totalDelay / numOfBatches) + " seconds per batch, measured " +
+				String.format("%.6f", sumOfLatencies / numOfBatches) + " seconds per batch, fitted model: base=" +
+				String.format("%.6f", fittedBase) + " per_task=" + String.format("%.6f", fittedPerTask));
+	}
+}
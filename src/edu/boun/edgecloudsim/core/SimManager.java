@@ -23,7 +23,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Iterator;
 
 
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
@@ -37,6 +37,7 @@ import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import org.cloudbus.cloudsim.Vm;
 
 import edu.boun.edgecloudsim.edge_client.Task;
@@ -51,6 +52,7 @@ public class SimManager extends SimEntity {
 	private static final int STOP_SIMULATION = 4;
 	private static final int GET_LOAD_PER_VM_LOG = 5;
 	private static final int ORQUESTRA = 6;
+	private static final int FAST_PATH = 7;
 	
 	private String simScenario;
 	private String orchestratorPolicy;
@@ -64,6 +66,20 @@ public class SimManager extends SimEntity {
 	private MobileServerManager mobileServerManager;
 	private LoadGeneratorModel loadGeneratorModel;
 	private MobileDeviceManager mobileDeviceManager;
+
+	//LOTOS batches are formed online from the task stream, only the open
+	//batch and the next task are kept in memory
+	private BatchController batchController;
+	private Iterator<TaskProperty> taskStream;
+	private TaskProperty nextTask;
+	private boolean batchClosedBySize;
+
+	//the orchestrator solves one batch at a time, the next batch waits until it is free
+	private OrchestrationLatencyModel latencyModel;
+	private double orchestratorBusyUntil;
+
+	//tasks rejected by the solver that join the next batch
+	private List<TaskProperty> retryQueue = new ArrayList<>();
 	
 	private static SimManager instance = null;
 	
@@ -74,6 +90,9 @@ public class SimManager extends SimEntity {
 		numOfMobileDevice = _numOfMobileDevice;
 		orchestratorPolicy = _orchestratorPolicy;
 
+		//random streams of this run, independent of the runs before it
+		RandomStreams.initialize(SimSettings.getInstance().getSeed());
+
 		SimLogger.print("Creating tasks...");
 		loadGeneratorModel = scenarioFactory.getLoadGeneratorModel();
 		loadGeneratorModel.initializeModel();
@@ -207,48 +226,24 @@ public class SimManager extends SimEntity {
 		}
 		
 
-		System.out.println("\n\nQUANTAS TAREFAS: " + loadGeneratorModel.getTaskList().size() + "\n\n");
+		if(loadGeneratorModel.getTaskList() != null)
+			System.out.println("\n\nQUANTAS TAREFAS: " + loadGeneratorModel.getTaskList().size() + "\n\n");
 
 
 
 		if(SimSettings.getInstance().getOrchestratorPolicies()[0].equals("LOTOS")){
-			/*Ordenação das tarefas conforme o tempo de geração da tarefa*/
-			List<TaskProperty> orderedTasks = loadGeneratorModel.getTaskList();
-			orderedTasks.sort(Comparator.comparingDouble(TaskProperty::getStartTime));
+			/*Tarefas em ordem de tempo de geração*/
+			batchController = new BatchController();
+			latencyModel = new OrchestrationLatencyModel();
+			taskStream = loadGeneratorModel.getTaskStream();
+			nextTask = pullNextTask();
 
 			/*divisão em lotes*/
-			int batch_size = SimSettings.getInstance().getNumberOfTasksSendToSolver();
-			double batch_time_limit = SimSettings.getInstance().getBatchTimestampLimit();
-
-			double batch_time_span = 0;
-			double time_of_the_last_task = orderedTasks.get(0).getStartTime();
-
-			List<List<TaskProperty>> subLists = new ArrayList<>();
-			List<TaskProperty> batch = new ArrayList<>();
-			for (int i = 0; i < orderedTasks.size(); i ++) {
-
-				batch_time_span = batch_time_span + (orderedTasks.get(i).getStartTime() - time_of_the_last_task);
-
-				if (batch.size() < batch_size && batch_time_span < batch_time_limit){
-					batch.add(orderedTasks.get(i));
-					time_of_the_last_task = orderedTasks.get(i).getStartTime();
-
-				}else{
-					subLists.add(batch);
-					batch = new ArrayList<>();
-					batch.add(orderedTasks.get(i));
-					time_of_the_last_task = orderedTasks.get(i).getStartTime();
-					batch_time_span = 0;
-				}
-			}
-			if (batch.size() != 0){
-				subLists.add(batch);
-			}
-
-			/*Envio de cada lote ao orquestrador*/
-			for (int i = 0; i < subLists.size(); i ++) {
-				schedule(getId(), subLists.get(i).get(subLists.get(i).size()-1).getStartTime(), ORQUESTRA, subLists.get(i));
-			}
+			scheduleNextBatch();
+		}else if(loadGeneratorModel.getTaskList() == null){
+			//streaming generation: only the next task of each device is scheduled
+			for(int i=0; i<numOfMobileDevice; i++)
+				scheduleNextTaskOfDevice(i);
 		}else{
 			//Creation of tasks are scheduled here!
 			for(int i=0; i< loadGeneratorModel.getTaskList().size(); i++)
@@ -275,12 +270,46 @@ public class SimManager extends SimEntity {
 				try {
 					List<TaskProperty> tasks = (List) ev.getData();
 
+					long solverStart = System.nanoTime();
 					Decision decision = mobileDeviceManager.submitTasks(tasks);
+					double solverLatency = (System.nanoTime() - solverStart) / 1e9;
+					//a batch recorded or replayed by the decision log uses the latency of the log
+					if(decision.hasSolverLatency())
+						solverLatency = decision.getSolverLatency();
+
+					batchController.update(tasks, CloudSim.clock(), solverLatency, batchClosedBySize);
+
+					//the tasks of the batch are dispatched once the orchestrator has finished,
+					//the delay is in seconds and the simulation clock in milliseconds
+					double orchestrationDelay = latencyModel.getDelay(tasks.size(), solverLatency);
+					double dispatchDelay = orchestrationDelay * OrchestrationLatencyModel.SIMULATION_TIME_PER_SECOND;
+					orchestratorBusyUntil = CloudSim.clock() + dispatchDelay;
 
 					for(int i=0; i< tasks.size(); i++){
-						List<Object> params = Arrays.asList((TaskProperty)tasks.get(i), (Vm)decision.getVms().get(i), (Integer)decision.getTypes().get(i));
-						schedule(getId(), 0, CREATE_TASK, params);
+						TaskProperty task = tasks.get(i);
+						boolean accepted = decision.getVms().get(i) != null;
+						task.addOrchestrationDelay(orchestrationDelay);
+
+						if(!accepted && canRetry(task)){
+							task.addRetry();
+							retryQueue.add(task);
+							continue;
+						}
+						if(task.getNumOfRetries() > 0)
+							SimLogger.getInstance().addRetryLog(task.getTaskType(), task.getStartTime(), task.getNumOfRetries(), accepted);
+
+						List<Object> params = Arrays.asList(task, (Vm)decision.getVms().get(i), (Integer)decision.getTypes().get(i));
+						schedule(getId(), dispatchDelay, CREATE_TASK, params);
 					}
+					scheduleNextBatch();
+				} catch (Exception e) {
+					e.printStackTrace();
+					System.exit(0);
+				}
+				break;
+			case FAST_PATH:
+				try {
+					mobileDeviceManager.submitLatencyCriticalTask((TaskProperty) ev.getData());
 				} catch (Exception e) {
 					e.printStackTrace();
 					System.exit(0);
@@ -303,6 +332,8 @@ public class SimManager extends SimEntity {
 					try {
 						TaskProperty edgeTask = (TaskProperty) ev.getData();
 						mobileDeviceManager.submitTask(edgeTask);						
+						if(loadGeneratorModel.getTaskList() == null)
+							scheduleNextTaskOfDevice(edgeTask.getMobileDeviceId());
 					} catch (Exception e) {
 						e.printStackTrace();
 						System.exit(1);
@@ -373,8 +404,96 @@ public class SimManager extends SimEntity {
 		}
 	}
 
+	/*
+	 * forms the next batch from the task stream with the current size and
+	 * time window and sends it to the orchestrator at the start time of its
+	 * last task, or when the orchestrator finishes the previous batch. The
+	 * batch is closed when it is full or when the next task falls out of
+	 * the time window
+	 */
+	private void scheduleNextBatch() {
+		int batch_size = batchController.getBatchSize();
+		double batch_time_limit = batchController.getTimeWindow();
+
+		//the retried tasks are added to the next batch, they do not count for its size
+		List<TaskProperty> batch = new ArrayList<>(retryQueue);
+		retryQueue.clear();
+
+		if(nextTask == null){
+			//no new task, the retried tasks are sent after one window
+			if(!batch.isEmpty())
+				schedule(getId(), Math.max(batch_time_limit, orchestratorBusyUntil - CloudSim.clock()), ORQUESTRA, batch);
+			return;
+		}
+
+		int numOfRetries = batch.size();
+		batch.add(nextTask);
+		double time_of_the_last_task = nextTask.getStartTime();
+		double batch_time_span = 0;
+		nextTask = pullNextTask();
+
+		while (nextTask != null) {
+			batch_time_span = batch_time_span + (nextTask.getStartTime() - time_of_the_last_task);
+
+			if (batch.size() - numOfRetries < batch_size && batch_time_span < batch_time_limit){
+				batch.add(nextTask);
+				time_of_the_last_task = nextTask.getStartTime();
+				nextTask = pullNextTask();
+			}else{
+				break;
+			}
+		}
+		batchClosedBySize = batch.size() - numOfRetries >= batch_size;
+
+		/*Envio do lote ao orquestrador*/
+		schedule(getId(), Math.max(0, Math.max(time_of_the_last_task, orchestratorBusyUntil) - CloudSim.clock()), ORQUESTRA, batch);
+	}
+
+	/*
+	 * a rejected task is sent again while it has retries left and its
+	 * delay limit is not reached yet
+	 */
+	private boolean canRetry(TaskProperty task) {
+		if(task.getNumOfRetries() >= SimSettings.getInstance().getLotosMaxSolverRetries())
+			return false;
+
+		double delayLimit = SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()][13];
+		return orchestratorBusyUntil - task.getStartTime() < delayLimit;
+	}
+
+	/*
+	 * schedules the creation of the next task of the device, streaming
+	 * generation only
+	 */
+	private void scheduleNextTaskOfDevice(int deviceId) {
+		TaskProperty task = loadGeneratorModel.getNextTask(deviceId);
+		if (task != null)
+			schedule(getId(), Math.max(0, task.getStartTime() - CloudSim.clock()), CREATE_TASK, task);
+	}
+
+	/*
+	 * returns the next task of the stream that goes to the batch solver,
+	 * latency critical tasks met on the way are sent to the fast path at
+	 * their start time
+	 */
+	private TaskProperty pullNextTask() {
+		while (taskStream.hasNext()) {
+			TaskProperty task = taskStream.next();
+			double orchestrationDelay = latencyModel.getExpectedDelay() * OrchestrationLatencyModel.SIMULATION_TIME_PER_SECOND;
+			if (!mobileDeviceManager.isLatencyCritical(task, batchController.getTimeWindow(), orchestrationDelay))
+				return task;
+			schedule(getId(), Math.max(0, task.getStartTime() - CloudSim.clock()), FAST_PATH, task);
+		}
+		return null;
+	}
+
 	@Override
 	public void shutdownEntity() {
+		if(batchController != null)
+			batchController.printStatistics();
+		if(latencyModel != null)
+			latencyModel.printStatistics();
+
 		edgeServerManager.terminateDatacenters();
 		cloudServerManager.terminateDatacenters();
 		mobileServerManager.terminateDatacenters();
@@ -17,7 +17,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.Properties;
+import java.util.TreeSet;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -104,9 +110,38 @@ public class SimSettings {
 
 	private int NUMBER_OF_TASKS_SEND_TO_SOLVER;
 
+	private double SOLVER_TIME_BUDGET;
+
 	private double BATCH_TIMESTAMP_LIMIT;
 
+	private boolean ADAPTIVE_BATCHING;
+	private int MIN_TASKS_SEND_TO_SOLVER;
+	private int MAX_TASKS_SEND_TO_SOLVER;
+	private double MIN_BATCH_TIMESTAMP_LIMIT;
+	private double MAX_BATCH_TIMESTAMP_LIMIT;
+	private double TARGET_SOLVER_LATENCY;
+
+	private boolean LOTOS_FAST_PATH;
+	private double FAST_PATH_SLACK_THRESHOLD;
+	private boolean LOTOS_STREAM_RESERVATIONS;
+	private int LOTOS_MAX_SOLVER_RETRIES;
+	private double LOTOS_LOOKAHEAD_HORIZON;
+	private int LOTOS_LOOKAHEAD_MAX_TASKS;
+
 	private int SEED;
+	private boolean STREAMING_TASK_GENERATION;
+
+	private String LOTOS_SOLVER;
+	private boolean LOTOS_SOLVER_DEBUG;
+	private String LOTOS_CONFIG_GENERATOR;
+	private int LOTOS_DECISION_CACHE_SIZE;
+	private String LOTOS_OBJECTIVE_MODE;
+	private String LOTOS_ORCHESTRATION_LATENCY;
+	private double LOTOS_ORCHESTRATION_LATENCY_BASE;
+	private double LOTOS_ORCHESTRATION_LATENCY_PER_TASK;
+	private String LOTOS_DECISION_LOG;
+	private String LOTOS_DECISION_LOG_FOLDER;
+	private long CONFIGURATION_HASH;
 
 	// mean waiting time (minute) is stored for each place types
 	private double[] mobilityLookUpTable;
@@ -128,6 +163,7 @@ public class SimSettings {
 	private double[][] taskLookUpTable = null;
 
 	private ArrayList<double[]> edgeLookUpTable = null;
+	private EdgeTopology edgeTopology = null;
 	//private ArrayList<double[]> cloudLookUpTable = null;
 
 	private String[] taskNames = null;
@@ -216,9 +252,40 @@ public class SimSettings {
 
 			NUMBER_OF_TASKS_SEND_TO_SOLVER = Integer.parseInt(prop.getProperty("number_of_tasks_send_to_solver", "0"));
 
+			SOLVER_TIME_BUDGET = Double.parseDouble(prop.getProperty("solver_time_budget", "0"));
+
 			BATCH_TIMESTAMP_LIMIT = Integer.parseInt(prop.getProperty("batch_timestamp_limit", "0"));
 
+			ADAPTIVE_BATCHING = Boolean.parseBoolean(prop.getProperty("adaptive_batching", "false"));
+			MIN_TASKS_SEND_TO_SOLVER = Integer.parseInt(prop.getProperty("min_tasks_send_to_solver", Integer.toString(NUMBER_OF_TASKS_SEND_TO_SOLVER)));
+			MAX_TASKS_SEND_TO_SOLVER = Integer.parseInt(prop.getProperty("max_tasks_send_to_solver", Integer.toString(NUMBER_OF_TASKS_SEND_TO_SOLVER)));
+			MIN_BATCH_TIMESTAMP_LIMIT = Double.parseDouble(prop.getProperty("min_batch_timestamp_limit", Double.toString(BATCH_TIMESTAMP_LIMIT)));
+			MAX_BATCH_TIMESTAMP_LIMIT = Double.parseDouble(prop.getProperty("max_batch_timestamp_limit", Double.toString(BATCH_TIMESTAMP_LIMIT)));
+			TARGET_SOLVER_LATENCY = Double.parseDouble(prop.getProperty("target_solver_latency", "1"));
+
+			LOTOS_FAST_PATH = Boolean.parseBoolean(prop.getProperty("lotos_fast_path", "false"));
+			FAST_PATH_SLACK_THRESHOLD = Double.parseDouble(prop.getProperty("fast_path_slack_threshold", "50"));
+
+			LOTOS_STREAM_RESERVATIONS = Boolean.parseBoolean(prop.getProperty("lotos_stream_reservations", "false"));
+			LOTOS_MAX_SOLVER_RETRIES = Integer.parseInt(prop.getProperty("lotos_max_solver_retries", "0"));
+			LOTOS_LOOKAHEAD_HORIZON = Double.parseDouble(prop.getProperty("lotos_lookahead_horizon", "0"));
+			LOTOS_LOOKAHEAD_MAX_TASKS = Integer.parseInt(prop.getProperty("lotos_lookahead_max_tasks", "6"));
+
 			SEED = Integer.parseInt(prop.getProperty("seed", "0"));
+			STREAMING_TASK_GENERATION = Boolean.parseBoolean(prop.getProperty("streaming_task_generation", "false"));
+
+			LOTOS_SOLVER = prop.getProperty("lotos_solver", "CPLEX");
+			LOTOS_SOLVER_DEBUG = Boolean.parseBoolean(prop.getProperty("lotos_solver_debug", "false"));
+			LOTOS_CONFIG_GENERATOR = prop.getProperty("lotos_config_generator", "JAVA");
+			LOTOS_DECISION_CACHE_SIZE = Integer.parseInt(prop.getProperty("lotos_decision_cache_size", "0"));
+			LOTOS_OBJECTIVE_MODE = prop.getProperty("lotos_objective_mode", "TWO_STAGE");
+			LOTOS_ORCHESTRATION_LATENCY = prop.getProperty("lotos_orchestration_latency", "NONE");
+			LOTOS_ORCHESTRATION_LATENCY_BASE = Double.parseDouble(prop.getProperty("lotos_orchestration_latency_base", "0"));
+			LOTOS_ORCHESTRATION_LATENCY_PER_TASK = Double.parseDouble(prop.getProperty("lotos_orchestration_latency_per_task", "0"));
+			LOTOS_DECISION_LOG = prop.getProperty("lotos_decision_log", "NONE");
+			LOTOS_DECISION_LOG_FOLDER = prop.getProperty("lotos_decision_log_folder", "sim_results/decision_logs");
+
+			CONFIGURATION_HASH = hashConfiguration(prop, edgeDevicesFile, applicationsFile);
 
 
 		} catch (IOException ex) {
@@ -246,6 +313,13 @@ public class SimSettings {
 		return edgeDevicesDoc;
 	}
 
+	/**
+	 * returns the datacenters, hosts and VMs of edge_devices.xml
+	 */
+	public EdgeTopology getEdgeTopology(){
+		return edgeTopology;
+	}
+
 
 	/**
 	 * returns simulation time (in seconds unit) from properties file
@@ -260,16 +334,216 @@ public class SimSettings {
 		return NUMBER_OF_TASKS_SEND_TO_SOLVER;
 	}
 
+	/**
+	 * returns the wall clock budget (in seconds unit) of the solver for each batch, 0 means no limit
+	 */
+	public double getSolverTimeBudget()
+	{
+		return SOLVER_TIME_BUDGET;
+	}
+
 	public double getBatchTimestampLimit()
 	{
 		return BATCH_TIMESTAMP_LIMIT;
 	}
 
+	/**
+	 * returns true if the batch size and time window follow the solver latency and task waiting times
+	 */
+	public boolean isAdaptiveBatchingEnabled()
+	{
+		return ADAPTIVE_BATCHING;
+	}
+
+	/**
+	 * returns the smallest batch size used by adaptive batching
+	 */
+	public int getMinTasksSendToSolver()
+	{
+		return MIN_TASKS_SEND_TO_SOLVER;
+	}
+
+	/**
+	 * returns the largest batch size used by adaptive batching
+	 */
+	public int getMaxTasksSendToSolver()
+	{
+		return MAX_TASKS_SEND_TO_SOLVER;
+	}
+
+	/**
+	 * returns the shortest batch time window (in milliseconds of simulation time) used by adaptive batching
+	 */
+	public double getMinBatchTimestampLimit()
+	{
+		return MIN_BATCH_TIMESTAMP_LIMIT;
+	}
+
+	/**
+	 * returns the longest batch time window (in milliseconds of simulation time) used by adaptive batching
+	 */
+	public double getMaxBatchTimestampLimit()
+	{
+		return MAX_BATCH_TIMESTAMP_LIMIT;
+	}
+
+	/**
+	 * returns the wall clock solver latency (in seconds unit) above which adaptive batching shrinks the batches
+	 */
+	public double getTargetSolverLatency()
+	{
+		return TARGET_SOLVER_LATENCY;
+	}
+
+	/**
+	 * returns true if latency critical tasks skip the LOTOS batch solver
+	 */
+	public boolean isLotosFastPathEnabled()
+	{
+		return LOTOS_FAST_PATH;
+	}
+
+	/**
+	 * returns the slack (in milliseconds of simulation time) below which a task takes the LOTOS fast path
+	 */
+	public double getFastPathSlackThreshold()
+	{
+		return FAST_PATH_SLACK_THRESHOLD;
+	}
+
+	/**
+	 * returns true if periodic streams (AR video frames) are placed on a reserved VM
+	 */
+	public boolean isLotosStreamReservationEnabled()
+	{
+		return LOTOS_STREAM_RESERVATIONS;
+	}
+
+	/**
+	 * returns how many times a task rejected by the LOTOS solver is sent again with the next batch, 0 disables retries
+	 */
+	public int getLotosMaxSolverRetries()
+	{
+		return LOTOS_MAX_SOLVER_RETRIES;
+	}
+
+	/**
+	 * returns the horizon (in milliseconds of simulation time) of the predicted arrivals added to each LOTOS batch, 0 disables the look-ahead
+	 */
+	public double getLotosLookaheadHorizon()
+	{
+		return LOTOS_LOOKAHEAD_HORIZON;
+	}
+
+	/**
+	 * returns the largest number of predicted arrivals added to a LOTOS batch
+	 */
+	public int getLotosLookaheadMaxTasks()
+	{
+		return LOTOS_LOOKAHEAD_MAX_TASKS;
+	}
+
 	public int getSeed()
 	{
 		return SEED;
 	}
 
+	/**
+	 * returns true if the tasks are generated one at a time per device instead of all at the start
+	 */
+	public boolean isStreamingTaskGeneration()
+	{
+		return STREAMING_TASK_GENERATION;
+	}
+
+	/**
+	 * returns the solver backend of the LOTOS orchestrator (CPLEX, JAVA, COLGEN, DECOMPOSED or COMPARE)
+	 */
+	public String getLotosSolver()
+	{
+		return LOTOS_SOLVER;
+	}
+
+	/**
+	 * returns true if the LOTOS batches and solutions are dumped as json files
+	 */
+	public boolean getLotosSolverDebug()
+	{
+		return LOTOS_SOLVER_DEBUG;
+	}
+
+	/**
+	 * returns where the CPLEX backend builds its configurations (JAVA or PYTHON)
+	 */
+	public String getLotosConfigGenerator()
+	{
+		return LOTOS_CONFIG_GENERATOR;
+	}
+
+	/**
+	 * returns the number of batch decisions kept by the LOTOS decision cache, 0 disables the cache
+	 */
+	public int getLotosDecisionCacheSize()
+	{
+		return LOTOS_DECISION_CACHE_SIZE;
+	}
+
+	/**
+	 * returns how the CPLEX backend optimizes the two LOTOS stages (TWO_STAGE, WEIGHTED or COMPARE)
+	 */
+	public String getLotosObjectiveMode()
+	{
+		return LOTOS_OBJECTIVE_MODE;
+	}
+
+	/**
+	 * returns how the time spent by the LOTOS orchestrator delays the batch in simulation time (NONE, MEASURED or MODEL)
+	 */
+	public String getLotosOrchestrationLatency()
+	{
+		return LOTOS_ORCHESTRATION_LATENCY;
+	}
+
+	/**
+	 * returns the fixed part (in seconds unit) of the orchestration latency model
+	 */
+	public double getLotosOrchestrationLatencyBase()
+	{
+		return LOTOS_ORCHESTRATION_LATENCY_BASE;
+	}
+
+	/**
+	 * returns the part per task (in seconds unit) of the orchestration latency model
+	 */
+	public double getLotosOrchestrationLatencyPerTask()
+	{
+		return LOTOS_ORCHESTRATION_LATENCY_PER_TASK;
+	}
+
+	/**
+	 * returns the mode of the LOTOS decision log (NONE, RECORD or REPLAY)
+	 */
+	public String getLotosDecisionLog()
+	{
+		return LOTOS_DECISION_LOG;
+	}
+
+	/**
+	 * returns the folder of the LOTOS decision logs
+	 */
+	public String getLotosDecisionLogFolder()
+	{
+		return LOTOS_DECISION_LOG_FOLDER;
+	}
+
+	/**
+	 * returns the hash of the properties (except the decision log ones), edge devices and applications files
+	 */
+	public long getConfigurationHash()
+	{
+		return CONFIGURATION_HASH;
+	}
+
 	/**
 	 * returns warm up period (in seconds unit) from properties file
 	 */
@@ -667,6 +941,29 @@ public class SimSettings {
 		return result;
 	}
 
+	/*
+	 * SHA-256 (first 8 bytes) of the sorted properties and of the xml files,
+	 * the decision log properties are left out so that recording and
+	 * replaying runs of the same configuration get the same hash
+	 */
+	private long hashConfiguration(Properties prop, String edgeDevicesFile, String applicationsFile)
+	{
+		long hash = 0;
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for(String key : new TreeSet<String>(prop.stringPropertyNames())) {
+				if(!key.startsWith("lotos_decision_log"))
+					digest.update((key + "=" + prop.getProperty(key) + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			digest.update(Files.readAllBytes(Paths.get(edgeDevicesFile)));
+			digest.update(Files.readAllBytes(Paths.get(applicationsFile)));
+			hash = ByteBuffer.wrap(digest.digest()).getLong();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+		return hash;
+	}
+
 	private void parseApplicationsXML(String filePath)
 	{
 		Document doc = null;
@@ -801,6 +1098,8 @@ public class SimSettings {
 				}
 			}
 
+			edgeTopology = new EdgeTopology(edgeDevicesDoc);
+
 		} catch (Exception e) {
 			SimLogger.printLine("Edge Devices XML cannot be parsed! Terminating simulation...");
 			e.printStackTrace();
@@ -32,4 +32,21 @@ public abstract class MobileDeviceManager  extends DatacenterBroker {
 	public abstract void submitTask(TaskProperty edgeTask, Vm vm, Integer tipo);
 
 	public abstract Decision submitTasks(List<TaskProperty> edgeTask);
+
+	/*
+	 * returns true if the task cannot wait for a batch with the given
+	 * time window and the expected orchestration delay (both in
+	 * milliseconds of simulation time) and must be placed without the
+	 * batch solver
+	 */
+	public boolean isLatencyCritical(TaskProperty edgeTask, double batchWindow, double orchestrationDelay) {
+		return false;
+	}
+
+	/*
+	 * places a latency critical task without the batch solver
+	 */
+	public void submitLatencyCriticalTask(TaskProperty edgeTask) {
+		submitTask(edgeTask);
+	}
 }
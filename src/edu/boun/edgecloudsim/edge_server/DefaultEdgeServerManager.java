@@ -2,7 +2,8 @@
  * Title:        EdgeCloudSim - Edge Server Manager
  * 
  * Description: 
- * DefaultEdgeServerManager is responsible for creating datacenters, hosts and VMs.
+ * DefaultEdgeServerManager is responsible for creating datacenters, hosts and VMs
+ * of the edge topology built by SimSettings.
  * It also provides the list of VMs running on the hosts.
  * This information is critical for the edge orchestrator.
  * 
@@ -29,14 +30,10 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
-import edu.boun.edgecloudsim.utils.Location;
 
 public class DefaultEdgeServerManager extends EdgeServerManager{
 	private int hostIdCounter;
@@ -55,51 +52,28 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 	}
 	
 	public void startDatacenters() throws Exception{
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			localDatacenters.add(createDatacenter(i, datacenterElement));
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		for (int i = 0; i < topology.getNumOfDatacenters(); i++) {
+			localDatacenters.add(createDatacenter(i, topology));
 		}
 	}
 
 	public void createVmList(int brockerId){
-		int hostCounter=0;
-		int vmCounter=0;
-		
-		//Create VMs for each hosts
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
-			for (int j = 0; j < hostNodeList.getLength(); j++) {
-				
-				vmList.add(hostCounter, new ArrayList<EdgeVM>());
-				
-				Node hostNode = hostNodeList.item(j);
-				Element hostElement = (Element) hostNode;
-				NodeList vmNodeList = hostElement.getElementsByTagName("VM");
-				for (int k = 0; k < vmNodeList.getLength(); k++) {
-					Node vmNode = vmNodeList.item(k);					
-					Element vmElement = (Element) vmNode;
+		//Create VMs for each hosts, the host and VM indexes of the topology are the ids
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		for (int host = 0; host < topology.getNumOfHosts(); host++) {
+			vmList.add(host, new ArrayList<EdgeVM>());
 
-					String vmm = vmElement.getAttribute("vmm");
-					int numOfCores = Integer.parseInt(vmElement.getElementsByTagName("core").item(0).getTextContent());
-					double mips = Double.parseDouble(vmElement.getElementsByTagName("mips").item(0).getTextContent());
-					int ram = Integer.parseInt(vmElement.getElementsByTagName("ram").item(0).getTextContent());
-					long storage = Long.parseLong(vmElement.getElementsByTagName("storage").item(0).getTextContent());
-					long bandwidth = SimSettings.getInstance().getWlanBandwidth() / (hostNodeList.getLength()+vmNodeList.getLength());
-					
-					//VM Parameters		
-					EdgeVM vm = new EdgeVM(vmCounter, brockerId, mips, numOfCores, ram, bandwidth, storage, vmm, new CustomizedCloudletSchedulerTimeShared());
-					vmList.get(hostCounter).add(vm);
-					vmCounter++;
-				}
+			int numOfHostsOfDatacenter = topology.getNumOfHostsOfDatacenter(topology.getHostDatacenter(host));
+			for (int k = 0; k < topology.getNumOfVmsOfHost(host); k++) {
+				int vmIndex = topology.getFirstVmOfHost(host) + k;
+				long bandwidth = SimSettings.getInstance().getWlanBandwidth() / (numOfHostsOfDatacenter + topology.getNumOfVmsOfHost(host));
 
-				hostCounter++;
+				//VM Parameters		
+				EdgeVM vm = new EdgeVM(vmIndex, brockerId, topology.getVmMips(vmIndex), topology.getVmCores(vmIndex),
+						topology.getVmRam(vmIndex), bandwidth, topology.getVmStorage(vmIndex), topology.getVmVmm(vmIndex),
+						new CustomizedCloudletSchedulerTimeShared());
+				vmList.get(host).add(vm);
 			}
 		}
 	}
@@ -204,16 +178,16 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 		return totalUtilization;
 	}
 
-	private Datacenter createDatacenter(int index, Element datacenterElement) throws Exception{
-		String arch = datacenterElement.getAttribute("arch");
-		String os = datacenterElement.getAttribute("os");
-		String vmm = datacenterElement.getAttribute("vmm");
-		double costPerBw = Double.parseDouble(datacenterElement.getElementsByTagName("costPerBw").item(0).getTextContent());
-		double costPerSec = Double.parseDouble(datacenterElement.getElementsByTagName("costPerSec").item(0).getTextContent());
-		double costPerMem = Double.parseDouble(datacenterElement.getElementsByTagName("costPerMem").item(0).getTextContent());
-		double costPerStorage = Double.parseDouble(datacenterElement.getElementsByTagName("costPerStorage").item(0).getTextContent());
+	private Datacenter createDatacenter(int index, EdgeTopology topology) throws Exception{
+		String arch = topology.getDatacenterArch(index);
+		String os = topology.getDatacenterOs(index);
+		String vmm = topology.getDatacenterVmm(index);
+		double costPerBw = topology.getDatacenterCostPerBw(index);
+		double costPerSec = topology.getDatacenterCostPerSec(index);
+		double costPerMem = topology.getDatacenterCostPerMem(index);
+		double costPerStorage = topology.getDatacenterCostPerStorage(index);
 		
-		List<EdgeHost> hostList=createHosts(datacenterElement);
+		List<EdgeHost> hostList=createHosts(index, topology);
 		
 		String name = "Datacenter_" + Integer.toString(index);
 		double time_zone = 3.0;         // time zone this resource located
@@ -236,29 +210,20 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 		return datacenter;
 	}
 	
-	private List<EdgeHost> createHosts(Element datacenterElement){
+	private List<EdgeHost> createHosts(int datacenterIndex, EdgeTopology topology){
 
 		// Here are the steps needed to create a PowerDatacenter:
 		// 1. We need to create a list to store one or more Machines
 		List<EdgeHost> hostList = new ArrayList<EdgeHost>();
 		
-		Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-		String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-		int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-		int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-		int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
-		int placeTypeIndex = Integer.parseInt(attractiveness);
-
-		NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
-		for (int j = 0; j < hostNodeList.getLength(); j++) {
-			Node hostNode = hostNodeList.item(j);
-			
-			Element hostElement = (Element) hostNode;
-			int numOfCores = Integer.parseInt(hostElement.getElementsByTagName("core").item(0).getTextContent());
-			double mips = Double.parseDouble(hostElement.getElementsByTagName("mips").item(0).getTextContent());
-			int ram = Integer.parseInt(hostElement.getElementsByTagName("ram").item(0).getTextContent());
-			long storage = Long.parseLong(hostElement.getElementsByTagName("storage").item(0).getTextContent());
-			long bandwidth = SimSettings.getInstance().getWlanBandwidth() / hostNodeList.getLength();
+		int numOfHosts = topology.getNumOfHostsOfDatacenter(datacenterIndex);
+		for (int j = 0; j < numOfHosts; j++) {
+			int hostIndex = topology.getFirstHostOfDatacenter(datacenterIndex) + j;
+			int numOfCores = topology.getHostCores(hostIndex);
+			double mips = topology.getHostMips(hostIndex);
+			int ram = topology.getHostRam(hostIndex);
+			long storage = topology.getHostStorage(hostIndex);
+			long bandwidth = SimSettings.getInstance().getWlanBandwidth() / numOfHosts;
 			
 			// 2. A Machine contains one or more PEs or CPUs/Cores. Therefore, should
 			//    create a list to store these PEs before creating
@@ -281,7 +246,7 @@ public class DefaultEdgeServerManager extends EdgeServerManager{
 					new VmSchedulerSpaceShared(peList)
 				);
 			
-			host.setPlace(new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
+			host.setPlace(topology.getDatacenterLocation(datacenterIndex));
 			hostList.add(host);
 			hostIdCounter++;
 		}
@@ -4,7 +4,15 @@
  * Description: 
  * MobilityModel implements basic nomadic mobility model where the
  * place of the devices are changed from time to time instead of a
- * continuous location update.
+ * continuous location update. Each device draws from its own stream of
+ * RandomStreams, the devices are generated in parallel with the same
+ * result.
+ * 
+ * The trajectory of a device is kept as its sorted move times and the
+ * datacenter of each move in primitive arrays. A lookup first checks the
+ * last move returned for the device and the one after it, which is the
+ * usual case since the clock only moves forward, and falls back to a
+ * binary search.
  * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
@@ -12,24 +20,23 @@
 
 package edu.boun.edgecloudsim.mobility;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
-import java.util.Map.Entry;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import org.apache.commons.math3.distribution.ExponentialDistribution;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.apache.commons.math3.random.RandomGenerator;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.utils.Location;
 import edu.boun.edgecloudsim.utils.SimLogger;
-import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 
 public class NomadicMobility extends MobilityModel {
-	private List<TreeMap<Double, Location>> treeMapArray;
+	private Location[] datacenterLocations;
+	private double[][] moveTimes; //sorted move times of each device
+	private int[][] moveDatacenters; //datacenter of each move
+	private int[] cursors; //last move returned for each device
 	
 	public NomadicMobility(int _numberOfMobileDevices, double _simulationTime) {
 		super(_numberOfMobileDevices, _simulationTime);
@@ -38,63 +45,58 @@ public class NomadicMobility extends MobilityModel {
 	
 	@Override
 	public void initialize() {
-		treeMapArray = new ArrayList<TreeMap<Double, Location>>();
-		
-		ExponentialDistribution[] expRngList = new ExponentialDistribution[SimSettings.getInstance().getNumOfEdgeDatacenters()];
-
-		//create random number generator for each place
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-			int placeTypeIndex = Integer.parseInt(attractiveness);
-			
-			expRngList[i] = new ExponentialDistribution(SimSettings.getInstance().getMobilityLookUpTable()[placeTypeIndex]);
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		datacenterLocations = new Location[topology.getNumOfDatacenters()];
+		double[] meanWaitingTime = new double[topology.getNumOfDatacenters()];
+		for (int i = 0; i < topology.getNumOfDatacenters(); i++) {
+			datacenterLocations[i] = topology.getDatacenterLocation(i);
+			meanWaitingTime[i] = SimSettings.getInstance().getMobilityLookUpTable()[datacenterLocations[i].getPlaceTypeIndex()];
 		}
-		
-		//initialize tree maps and position of mobile devices
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			treeMapArray.add(i, new TreeMap<Double, Location>());
-			
-			int randDatacenterId = SimUtils.getRandomNumber(0, SimSettings.getInstance().getNumOfEdgeDatacenters()-1);
-			Node datacenterNode = datacenterList.item(randDatacenterId);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-			int placeTypeIndex = Integer.parseInt(attractiveness);
-			int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-			int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-			int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
+
+		moveTimes = new double[numberOfMobileDevices][];
+		moveDatacenters = new int[numberOfMobileDevices][];
+		cursors = new int[numberOfMobileDevices];
+
+		//each device only touches its own arrays, so the devices run on the fork-join pool
+		IntStream.range(0, numberOfMobileDevices).parallel().forEach(i -> {
+			double[] times = new double[16];
+			int[] datacenters = new int[16];
+			int numOfMoves = 0;
+
+			//the random stream of a device does not depend on the other devices
+			RandomGenerator random = RandomStreams.getStream(RandomStreams.MOBILITY, i);
+			ExponentialDistribution[] expRngList = new ExponentialDistribution[meanWaitingTime.length];
+			for (int j = 0; j < meanWaitingTime.length; j++)
+				expRngList[j] = new ExponentialDistribution(random, meanWaitingTime[j]);
+
+			int randDatacenterId = random.nextInt(SimSettings.getInstance().getNumOfEdgeDatacenters());
 
 			//start locating user shortly after the simulation started (e.g. 10 seconds)
-			treeMapArray.get(i).put(SimSettings.CLIENT_ACTIVITY_START_TIME, new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
-		}
-		
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			TreeMap<Double, Location> treeMap = treeMapArray.get(i);
+			times[numOfMoves] = SimSettings.CLIENT_ACTIVITY_START_TIME;
+			datacenters[numOfMoves++] = randDatacenterId;
 
-			while(treeMap.lastKey() < SimSettings.getInstance().getSimulationTime()) {				
+			while(times[numOfMoves - 1] < SimSettings.getInstance().getSimulationTime()) {				
 				boolean placeFound = false;
-				int currentLocationId = treeMap.lastEntry().getValue().getServingWlanId();
+				int currentLocationId = datacenterLocations[datacenters[numOfMoves - 1]].getServingWlanId();
 				double waitingTime = expRngList[currentLocationId].sample();
 				
 				while(placeFound == false){
-					int newDatacenterId = SimUtils.getRandomNumber(0,SimSettings.getInstance().getNumOfEdgeDatacenters()-1);
+					int newDatacenterId = random.nextInt(SimSettings.getInstance().getNumOfEdgeDatacenters());
 					if(newDatacenterId != currentLocationId){
 						placeFound = true;
-						Node datacenterNode = datacenterList.item(newDatacenterId);
-						Element datacenterElement = (Element) datacenterNode;
-						Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-						String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-						int placeTypeIndex = Integer.parseInt(attractiveness);
-						int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-						int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-						int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
-						
-						treeMap.put(treeMap.lastKey()+waitingTime, new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
+						double time = times[numOfMoves - 1] + waitingTime;
+
+						//a move at the same time replaces the last one
+						if(time == times[numOfMoves - 1]) {
+							datacenters[numOfMoves - 1] = newDatacenterId;
+							continue;
+						}
+						if(numOfMoves == times.length) {
+							times = Arrays.copyOf(times, 2 * numOfMoves);
+							datacenters = Arrays.copyOf(datacenters, 2 * numOfMoves);
+						}
+						times[numOfMoves] = time;
+						datacenters[numOfMoves++] = newDatacenterId;
 					}
 				}
 				if(!placeFound){
@@ -102,22 +104,39 @@ public class NomadicMobility extends MobilityModel {
 			    	System.exit(0);
 				}
 			}
-		}
-
+			moveTimes[i] = Arrays.copyOf(times, numOfMoves);
+			moveDatacenters[i] = Arrays.copyOf(datacenters, numOfMoves);
+		});
 	}
 
 	@Override
 	public Location getLocation(int deviceId, double time) {
-		TreeMap<Double, Location> treeMap = treeMapArray.get(deviceId);
-		
-		Entry<Double, Location> e = treeMap.floorEntry(time);
-	    
-	    if(e == null){
-	    	SimLogger.printLine("impossible is occured! no location is found for the device '" + deviceId + "' at " + time);
-	    	System.exit(0);
-	    }
-	    
-		return e.getValue();
+		double[] times = moveTimes[deviceId];
+		int move = cursors[deviceId];
+
+		//the move of the last lookup or the next one usually holds, any stored cursor is a valid index
+		if(times[move] > time || (move + 1 < times.length && times[move + 1] <= time)) {
+			if(times[move] <= time && (move + 2 == times.length || times[move + 2] > time))
+				move++;
+			else
+				move = floorIndex(times, time);
+
+			if(move < 0){
+				SimLogger.printLine("impossible is occured! no location is found for the device '" + deviceId + "' at " + time);
+				System.exit(0);
+			}
+			cursors[deviceId] = move;
+		}
+
+		return datacenterLocations[moveDatacenters[deviceId][move]];
+	}
+
+	/*
+	 * index of the last move at or before the time, -1 if there is none
+	 */
+	private static int floorIndex(double[] times, double time) {
+		int index = Arrays.binarySearch(times, time);
+		return (index >= 0) ? index : -index - 2;
 	}
 
 }
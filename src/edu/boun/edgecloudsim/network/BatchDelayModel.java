@@ -0,0 +1,22 @@
+/*
+ * Title:        EdgeCloudSim - Batch Delay Model
+ *
+ * Description:
+ * BatchDelayModel is implemented by the network models which can compute
+ * the delays of a whole batch of tasks at once. Batch orchestrators
+ * require their network model to implement it.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.network;
+
+public interface BatchDelayModel {
+	/**
+	* calculates the delays of a batch of tasks to every destination tier at once
+	* from the upload and download sizes (KB) of the tasks, for 1 to maxUsers users
+	* sharing each link
+	*/
+	public NetworkDelayMatrix getBatchDelays(double[] uploadSizes, double[] downloadSizes, int maxUsers);
+}
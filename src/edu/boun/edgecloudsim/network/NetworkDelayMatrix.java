@@ -0,0 +1,85 @@
+/*
+ * Title:        EdgeCloudSim - Network Delay Matrix
+ *
+ * Description:
+ * NetworkDelayMatrix holds the network delays of a batch of tasks for
+ * every destination tier: the wlan delay to the access point serving the
+ * device and the wan delay to the cloud, both for 1 to maxUsers users
+ * sharing the link, and the man delay between two access points. It is
+ * filled once per batch by the NetworkModel so that the orchestrator and
+ * its solvers look the delays up instead of recomputing them.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.network;
+
+public class NetworkDelayMatrix {
+	private int numOfTasks;
+	private int maxUsers;
+	private double[] wlanDelay; //seconds, indexed by task * maxUsers + users - 1
+	private double[] wanDelay; //seconds, indexed by task * maxUsers + users - 1
+	private double manDelay; //seconds
+
+	public NetworkDelayMatrix(int _numOfTasks, int _maxUsers) {
+		numOfTasks = _numOfTasks;
+		maxUsers = _maxUsers;
+		wlanDelay = new double[numOfTasks * maxUsers];
+		wanDelay = new double[numOfTasks * maxUsers];
+	}
+
+	public int getNumOfTasks() {
+		return numOfTasks;
+	}
+
+	public int getMaxUsers() {
+		return maxUsers;
+	}
+
+	/*
+	 * round trip delay of the task to its serving access point shared by the given number of users
+	 */
+	public double getWlanDelay(int task, int users) {
+		return wlanDelay[task * maxUsers + users - 1];
+	}
+
+	/*
+	 * round trip delay of the task to the cloud with the given number of users on the wan link
+	 */
+	public double getWanDelay(int task, int users) {
+		return wanDelay[task * maxUsers + users - 1];
+	}
+
+	/*
+	 * round trip delay between two access points
+	 */
+	public double getManDelay() {
+		return manDelay;
+	}
+
+	public void setWlanDelay(int task, int users, double delay) {
+		wlanDelay[task * maxUsers + users - 1] = delay;
+	}
+
+	public void setWanDelay(int task, int users, double delay) {
+		wanDelay[task * maxUsers + users - 1] = delay;
+	}
+
+	public void setManDelay(double delay) {
+		manDelay = delay;
+	}
+
+	/*
+	 * returns the rows of the given tasks (in that order)
+	 */
+	public NetworkDelayMatrix subMatrix(int[] tasks) {
+		NetworkDelayMatrix matrix = new NetworkDelayMatrix(tasks.length, maxUsers);
+		for(int i=0; i<tasks.length; i++) {
+			System.arraycopy(wlanDelay, tasks[i] * maxUsers, matrix.wlanDelay, i * maxUsers, maxUsers);
+			System.arraycopy(wanDelay, tasks[i] * maxUsers, matrix.wanDelay, i * maxUsers, maxUsers);
+		}
+		matrix.manDelay = manDelay;
+		return matrix;
+	}
+}
@@ -7,6 +7,13 @@
  * Task interarrival time (load generation period), Idle and active periods
  * are defined in the configuration file.
  * 
+ * Each device keeps its own generator state and draws from its own
+ * stream of RandomStreams, so its tasks do not depend on the other
+ * devices and the devices are generated in parallel with the same
+ * result. With streaming_task_generation the task list is not built,
+ * the tasks are created one at a time when the simulation pulls them.
+ * Both modes give the same tasks.
+ * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
  */
@@ -14,127 +21,222 @@
 package edu.boun.edgecloudsim.task_generator;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.math3.distribution.ExponentialDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
-import org.apache.commons.math3.random.Well19937c;
 
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.utils.RandomStreams;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 import edu.boun.edgecloudsim.utils.SimLogger;
-import edu.boun.edgecloudsim.utils.SimUtils;
 
 public class IdleActiveLoadGenerator extends LoadGeneratorModel{
 	int taskTypeOfDevices[];
+	private DeviceStream[] deviceStreams; //streaming mode only
+
+	/*
+	 * generator state of a device: next arrival, active/idle phase and
+	 * random stream. next() gives the tasks of the device one at a time
+	 */
+	private static class DeviceStream {
+		private int deviceId;
+		private int taskType;
+		private double simulationTime;
+		private double virtualTime;
+		private double activePeriodStartTime;
+		private double activePeriod;
+		private double idlePeriod;
+		private RandomGenerator random;
+		private ExponentialDistribution intervalRng;
+		private ExponentialDistribution[][] expRngList;
+		private NormalDistribution[] expNorList;
+
+		private DeviceStream(int _deviceId, int _taskType, double _activePeriodStartTime, RandomGenerator _random, double _simulationTime) {
+			deviceId = _deviceId;
+			random = _random;
+			taskType = _taskType;
+			simulationTime = _simulationTime;
+			activePeriodStartTime = _activePeriodStartTime;
+			virtualTime = activePeriodStartTime;
+			activePeriod = SimSettings.getInstance().getTaskLookUpTable()[taskType][3];
+			idlePeriod = SimSettings.getInstance().getTaskLookUpTable()[taskType][4];
+
+			if (taskType == 0) {
+				//AR video frames, their length follows one of two normal distributions
+				expNorList = new NormalDistribution[2];
+				expNorList[0] = new NormalDistribution(random, 155.62,14.10);
+				expNorList[1] = new NormalDistribution(random, 322.38,71.18);
+			}
+			else {
+				expRngList = new ExponentialDistribution[SimSettings.getInstance().getTaskLookUpTable().length][3];
+				expRngList[taskType][0] = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[taskType][5]);
+				expRngList[taskType][1] = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[taskType][6]);
+				expRngList[taskType][2] = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[taskType][7]);
+				intervalRng = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[taskType][2]);
+			}
+		}
+
+		private TaskProperty next() {
+			while(virtualTime < simulationTime) {
+				//Change: for the AR application, we use the model based on MR-Leo
+				//the user tasks (type 17, Poisson with a mean of 5 min) never followed the
+				//video frames since the frames last until the end of the simulation
+				if (taskType == 0) {
+					//Video task
+					//Periodic with interarrival time 33ms
+					TaskProperty task = new TaskProperty(deviceId, 16, virtualTime, expRngList, expNorList, random);
+					virtualTime += 33;
+					return task;
+				}
+
+				//Original Sonmez code
+				double interval = intervalRng.sample();
+
+				if(interval <= 0){
+					SimLogger.printLine("Impossible is occured! interval is " + interval + " for device " + deviceId + " time " + virtualTime);
+					continue;
+				}
+
+				if(virtualTime > activePeriodStartTime + activePeriod){
+					activePeriodStartTime = activePeriodStartTime + activePeriod + idlePeriod;
+					virtualTime = activePeriodStartTime;
+					continue;
+				}
+				TaskProperty task = new TaskProperty(deviceId, taskType, virtualTime, expRngList, expNorList, random);
+				virtualTime += interval;
+				return task;
+			}
+			return null;
+		}
+	}
+
 	public IdleActiveLoadGenerator(int _numberOfMobileDevices, double _simulationTime, String _simScenario) {
 		super(_numberOfMobileDevices, _simulationTime, _simScenario);
 	}
 
 	@Override
 	public void initializeModel() {
-		taskList = new ArrayList<TaskProperty>();
-
-		long seed = SimSettings.getInstance().getSeed(); // You can change this to any long value
-        RandomGenerator random = new Well19937c();
-		random.setSeed(seed);
-		
-		//exponential number generator for file input size, file output size and task length
-		ExponentialDistribution[][] expRngList = new ExponentialDistribution[SimSettings.getInstance().getTaskLookUpTable().length][3];
-		
-		//create random number generator for each place
-		for(int i=0; i<SimSettings.getInstance().getTaskLookUpTable().length; i++) {
-			if(SimSettings.getInstance().getTaskLookUpTable()[i][0] ==0)
-				continue;
-			
-			expRngList[i][0] = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[i][5]);
-			expRngList[i][1] = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[i][6]);
-			expRngList[i][2] = new ExponentialDistribution(random, SimSettings.getInstance().getTaskLookUpTable()[i][7]);
-		}
-		
-		//Create additional new random generators
-		NormalDistribution[] expNorList = new NormalDistribution[2];
-		expNorList[0] = new NormalDistribution(random, 155.62,14.10);
-		expNorList[1] = new NormalDistribution(random, 322.38,71.18);
-		
-		//Each mobile device utilizes an app type (task type)
-		taskTypeOfDevices = new int[numberOfMobileDevices];
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			int randomTaskType = -1;
-			double taskTypeSelector = SimUtils.getRandomDoubleNumber(0,100);
-			double taskTypePercentage = 0;
-			for (int j=0; j<SimSettings.getInstance().getTaskLookUpTable().length; j++) {
-				taskTypePercentage += SimSettings.getInstance().getTaskLookUpTable()[j][0];
-				if(taskTypeSelector <= taskTypePercentage){
-					randomTaskType = j;
-					break;
-				}
+		initializeStreams();
+		if(SimSettings.getInstance().isStreamingTaskGeneration())
+			return;
+
+		//list mode: the device streams are drained in parallel, then merged in device order
+		List<List<TaskProperty>> tasksOfDevices = IntStream.range(0, numberOfMobileDevices).parallel().mapToObj(i -> {
+			List<TaskProperty> tasks = new ArrayList<TaskProperty>();
+			TaskProperty task = getNextTask(i);
+			while(task != null) {
+				tasks.add(task);
+				task = getNextTask(i);
 			}
+			return tasks;
+		}).collect(Collectors.toList());
+
+		int numOfTasks = 0;
+		for(List<TaskProperty> tasks : tasksOfDevices)
+			numOfTasks += tasks.size();
+		taskList = new ArrayList<TaskProperty>(numOfTasks);
+		for(List<TaskProperty> tasks : tasksOfDevices)
+			taskList.addAll(tasks);
+		deviceStreams = null;
+	}
+
+	/*
+	 * each device only keeps its generator state, the tasks are created
+	 * when they are pulled
+	 */
+	private void initializeStreams() {
+		taskTypeOfDevices = new int[numberOfMobileDevices];
+		deviceStreams = new DeviceStream[numberOfMobileDevices];
+
+		//each device only touches its own entries, so the devices run on the fork-join pool
+		IntStream.range(0, numberOfMobileDevices).parallel().forEach(i -> {
+			//the random stream of a device does not depend on the other devices
+			RandomGenerator random = RandomStreams.getStream(RandomStreams.LOAD_GENERATOR, i);
+
+			//Each mobile device utilizes an app type (task type)
+			int randomTaskType = selectTaskType(random);
 			if(randomTaskType == -1){
 				SimLogger.printLine("Impossible is occured! no random task type!");
-				continue;
+				return;
 			}
-			
+
 			taskTypeOfDevices[i] = randomTaskType;
-			
-			double poissonMean = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][2];
+
+			//active period starts shortly after the simulation started (e.g. 10 seconds)
 			double activePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][3];
-			double idlePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][4];
-			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(
-					SimSettings.CLIENT_ACTIVITY_START_TIME, 
-					SimSettings.CLIENT_ACTIVITY_START_TIME + activePeriod);  //active period starts shortly after the simulation started (e.g. 10 seconds)
-			double virtualTime = activePeriodStartTime;
-			
-			//Change: for the AR application, we use the model based on MR-Leo
-			//To run the original task generator using the theoretical model, comment the if branch
-			if (randomTaskType == 0) {//AR is the first element of the list
-				
-				//Video task
-				//Periodic with interarrival time 33ms
-				double interval_per = 33;
-				while(virtualTime < simulationTime) {
-					taskList.add(new TaskProperty(i,16, virtualTime, expRngList, expNorList));
-					virtualTime += interval_per;
-				}
-				
-				//User task
-				//Poisson distributed with a mean of 5 min (=300000ms)
-				ExponentialDistribution rng2 = new ExponentialDistribution(random, 300000);
-				while(virtualTime < simulationTime) {
-					double interval = rng2.sample();
-
-					if(interval <= 0){
-						SimLogger.printLine("Impossible is occured! interval is " + interval + " for device " + i + " time " + virtualTime);
-						continue;
-					}
-
-					taskList.add(new TaskProperty(i,17, virtualTime, expRngList,expNorList));
-					virtualTime += interval;
-				}
-				
+			double activePeriodStartTime = SimSettings.CLIENT_ACTIVITY_START_TIME + activePeriod * random.nextDouble();
+
+			deviceStreams[i] = new DeviceStream(i, randomTaskType, activePeriodStartTime, random, simulationTime);
+		});
+	}
+
+	/*
+	 * returns the next task of the device in the streaming mode, or null
+	 * when the device has no task left
+	 */
+	@Override
+	public TaskProperty getNextTask(int deviceId) {
+		if(deviceStreams == null || deviceStreams[deviceId] == null)
+			return null;
+		return deviceStreams[deviceId].next();
+	}
+
+	/*
+	 * the streaming mode merges the device streams, only the next task
+	 * of each device is held
+	 */
+	@Override
+	public Iterator<TaskProperty> getTaskStream() {
+		if(deviceStreams == null)
+			return super.getTaskStream();
+
+		final PriorityQueue<TaskProperty> heads = new PriorityQueue<TaskProperty>(Math.max(1, numberOfMobileDevices),
+				Comparator.comparingDouble(TaskProperty::getStartTime).thenComparingInt(TaskProperty::getMobileDeviceId));
+		for(int i=0; i<numberOfMobileDevices; i++) {
+			TaskProperty task = getNextTask(i);
+			if(task != null)
+				heads.add(task);
+		}
+
+		return new Iterator<TaskProperty>() {
+			@Override
+			public boolean hasNext() {
+				return !heads.isEmpty();
 			}
-			else {
-				//Original Sonmez code 
-				ExponentialDistribution rng = new ExponentialDistribution(random, poissonMean);
-				while(virtualTime < simulationTime) {
-
-					double interval = rng.sample();
-
-					if(interval <= 0){
-						SimLogger.printLine("Impossible is occured! interval is " + interval + " for device " + i + " time " + virtualTime);
-						continue;
-					}
-
-					if(virtualTime > activePeriodStartTime + activePeriod){
-						activePeriodStartTime = activePeriodStartTime + activePeriod + idlePeriod;
-						virtualTime = activePeriodStartTime;
-						continue;
-					}
-					taskList.add(new TaskProperty(i,randomTaskType, virtualTime, expRngList,expNorList));
-					virtualTime += interval;
-				}
+
+			@Override
+			public TaskProperty next() {
+				TaskProperty task = heads.poll();
+				if(task == null)
+					throw new NoSuchElementException();
+				TaskProperty replacement = getNextTask(task.getMobileDeviceId());
+				if(replacement != null)
+					heads.add(replacement);
+				return task;
+			}
+		};
+	}
+
+	private int selectTaskType(RandomGenerator random) {
+		int randomTaskType = -1;
+		double taskTypeSelector = 100 * random.nextDouble();
+		double taskTypePercentage = 0;
+		for (int j=0; j<SimSettings.getInstance().getTaskLookUpTable().length; j++) {
+			taskTypePercentage += SimSettings.getInstance().getTaskLookUpTable()[j][0];
+			if(taskTypeSelector <= taskTypePercentage){
+				randomTaskType = j;
+				break;
 			}
 		}
+		return randomTaskType;
 	}
 
 	@Override
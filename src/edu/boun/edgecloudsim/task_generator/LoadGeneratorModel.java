@@ -13,6 +13,8 @@
 
 package edu.boun.edgecloudsim.task_generator;
 
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 
 import edu.boun.edgecloudsim.utils.TaskProperty;
@@ -37,6 +39,25 @@ public abstract class LoadGeneratorModel {
 		return taskList;
 	}
 
+	/*
+	 * returns the tasks in the order of their start time, the default
+	 * implementation sorts the task list. Models generating the tasks
+	 * on demand may override it to avoid keeping the whole list
+	 */
+	public Iterator<TaskProperty> getTaskStream() {
+		taskList.sort(Comparator.comparingDouble(TaskProperty::getStartTime));
+		return taskList.iterator();
+	}
+
+	/*
+	 * returns the next task of the device, or null when it has no task
+	 * left. Only models generating the tasks on demand implement it, their
+	 * getTaskList returns null
+	 */
+	public TaskProperty getNextTask(int deviceId) {
+		return null;
+	}
+
 	/*
 	 * fill task list according to related task generation model
 	 */
@@ -6,6 +6,7 @@ import java.util.List;
 public class Decision{
     public final List<Vm> vms;
     public final List<Integer> types;
+    private double solverLatency = Double.NaN; //seconds, set when the decision log provides it
 
     public Decision(List<Vm> vms, List<Integer> types) {
         this.vms = vms;
@@ -19,4 +20,16 @@ public class Decision{
     public List<Integer> getTypes() {
         return types;
     }
+
+    public void setSolverLatency(double solverLatency) {
+        this.solverLatency = solverLatency;
+    }
+
+    public boolean hasSolverLatency() {
+        return !Double.isNaN(solverLatency);
+    }
+
+    public double getSolverLatency() {
+        return solverLatency;
+    }
 }
\ No newline at end of file
@@ -9,11 +9,9 @@
 
 package edu.boun.edgecloudsim.utils;
 
-import java.util.Date;
-import java.util.concurrent.TimeUnit;
+import org.apache.commons.math3.random.RandomGenerator;
 
 import cern.jet.random.Poisson;
-import cern.jet.random.engine.MersenneTwister;
 import cern.jet.random.engine.RandomEngine;
 
 public class PoissonDistr {
@@ -21,22 +19,34 @@ public class PoissonDistr {
 	RandomEngine engine;
 
     /**
-     * Creates a new exponential number generator.
+     * Creates a new poisson number generator drawing from the stream of
+     * RandomStreams for the given component and id, so the numbers do not
+     * depend on how many generators were created before.
      * 
      * @param mean the mean for the distribution.
+     * @param component the component using the generator.
+     * @param id the id (e.g. device id) of the generator in the component.
      */
-    public PoissonDistr(double mean) {
-		engine = new MersenneTwister(new Date());
+    public PoissonDistr(double mean, String component, int id) {
+    	this(mean, RandomStreams.getStream(component, id));
+    }
+
+    /**
+     * Creates a new poisson number generator drawing from the given stream.
+     * 
+     * @param mean the mean for the distribution.
+     * @param random the random stream.
+     */
+    public PoissonDistr(double mean, final RandomGenerator random) {
+		engine = new RandomEngine() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public int nextInt() {
+				return random.nextInt();
+			}
+		};
 		poisson = new Poisson(mean, engine);
-		
-		//always sleep for some milliseconds in order not to have same seed for iterative PoissonDistr contruction
-		try {
-			TimeUnit.MILLISECONDS.sleep(10);
-		} catch (InterruptedException e) {
-	    	SimLogger.printLine("impossible is occured! Poisson random number cannot be created!");
-			e.printStackTrace();
-	    	System.exit(0);
-		}
     }
 
     /**
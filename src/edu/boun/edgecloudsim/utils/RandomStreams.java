@@ -0,0 +1,67 @@
+/*
+ * Title:        EdgeCloudSim - Random Streams
+ *
+ * Description:  RandomStreams hands out the random number streams of a run.
+ *               The stream of a (component, device id) pair is seeded from
+ *               the seed of the run, the component name and the device id
+ *               only, so it does not depend on which other streams were
+ *               created or used before. Devices can therefore be generated
+ *               in any order or in parallel and still give the same numbers.
+ *               The shared stream serves SimUtils during the simulation.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+public class RandomStreams {
+	public static final String SHARED = "shared";
+	public static final String LOAD_GENERATOR = "load_generator";
+	public static final String MOBILITY = "mobility";
+	public static final String POISSON = "poisson";
+
+	private static long seed = 0;
+	private static SplittableRandomGenerator shared;
+
+	/*
+	 * sets the seed of the run, called before the models are created
+	 */
+	public static synchronized void initialize(long _seed) {
+		seed = _seed;
+		shared = null;
+	}
+
+	/*
+	 * returns the stream of the device for the component, calling it twice
+	 * gives two streams with the same numbers
+	 */
+	public static SplittableRandomGenerator getStream(String component, int deviceId) {
+		long key = mix(seed);
+		key = mix(key ^ component.hashCode());
+		key = mix(key ^ deviceId);
+		return new SplittableRandomGenerator(key);
+	}
+
+	public static SplittableRandomGenerator getStream(String component) {
+		return getStream(component, -1);
+	}
+
+	/*
+	 * stream used by SimUtils, it is not thread safe
+	 */
+	public static synchronized SplittableRandomGenerator getSharedStream() {
+		if(shared == null)
+			shared = getStream(SHARED);
+		return shared;
+	}
+
+	/*
+	 * finalizer of SplitMix64, spreads close keys over the whole seed space
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
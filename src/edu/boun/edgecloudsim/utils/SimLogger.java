@@ -61,6 +61,10 @@ public class SimLogger {
 		LAN_ERROR, MAN_ERROR, WAN_ERROR, GSM_ERROR, NONE
 	}
 
+	public static enum DISPATCH_TYPES {
+		BATCH, FAST_PATH, RESERVATION
+	}
+
 	private long startTime;
 	private long endTime;
 	private static boolean fileLogEnabled;
@@ -133,6 +137,12 @@ public class SimLogger {
 	private int[] failTaskDueToRamCapacity = null;
 	private int[] failTaskDueToDelayLimit = null;
 	private int[] rejectedTasksBySolver = null;
+	private int[] fastPathTasks = null;
+	private int[] batchedTasks = null;
+	private int[] reservedTasks = null;
+	private int[] retriedTasks = null;
+	private int[] acceptedRetriedTasks = null;
+	private int[] solverRetries = null;
 	
 	private double[] cost = null;
 	private double[] QoE = null;
@@ -278,6 +288,12 @@ public class SimLogger {
 		failTaskDueToRamCapacity = new int[numOfAppTypes + 1];
 		failTaskDueToDelayLimit = new int[numOfAppTypes + 1];
 		rejectedTasksBySolver = new int[numOfAppTypes + 1];
+		fastPathTasks = new int[numOfAppTypes + 1];
+		batchedTasks = new int[numOfAppTypes + 1];
+		reservedTasks = new int[numOfAppTypes + 1];
+		retriedTasks = new int[numOfAppTypes + 1];
+		acceptedRetriedTasks = new int[numOfAppTypes + 1];
+		solverRetries = new int[numOfAppTypes + 1];
 		
 		cost = new double[numOfAppTypes + 1];
 		QoE = new double[numOfAppTypes + 1];
@@ -395,6 +411,37 @@ public class SimLogger {
 		recordLog(taskId);
 	}
 
+	/*
+	 * counts the tasks sent to the LOTOS batch solver, the latency
+	 * critical tasks placed by the fast path and the frames of reserved
+	 * streams
+	 */
+	public void addDispatchLog(int taskType, double taskCreationTime, DISPATCH_TYPES dispatchType) {
+		if (taskCreationTime < SimSettings.getInstance().getWarmUpPeriod())
+			return;
+
+		if (dispatchType == DISPATCH_TYPES.FAST_PATH)
+			fastPathTasks[taskType]++;
+		else if (dispatchType == DISPATCH_TYPES.RESERVATION)
+			reservedTasks[taskType]++;
+		else
+			batchedTasks[taskType]++;
+	}
+
+	/*
+	 * logs the final solver decision of a task that was sent again after
+	 * being rejected by the LOTOS solver
+	 */
+	public void addRetryLog(int taskType, double taskCreationTime, int numOfRetries, boolean accepted) {
+		if (taskCreationTime < SimSettings.getInstance().getWarmUpPeriod())
+			return;
+
+		retriedTasks[taskType]++;
+		solverRetries[taskType] += numOfRetries;
+		if (accepted)
+			acceptedRetriedTasks[taskType]++;
+	}
+
 	public void failedDueToBandwidth(int taskId, double time, NETWORK_DELAY_TYPES delayType) {
 		taskMap.get(taskId).taskFailedDueToBandwidth(time, delayType);
 		taskMapPersisted.get(taskId).taskFailedDueToBandwidth(time, delayType);
@@ -582,6 +629,12 @@ public class SimLogger {
 		failTaskDueToRamCapacity[numOfAppTypes] = IntStream.of(failTaskDueToRamCapacity).sum();
 		failTaskDueToDelayLimit[numOfAppTypes] = IntStream.of(failTaskDueToDelayLimit).sum();
 		rejectedTasksBySolver[numOfAppTypes] = IntStream.of(rejectedTasksBySolver).sum();
+		fastPathTasks[numOfAppTypes] = IntStream.of(fastPathTasks).sum();
+		batchedTasks[numOfAppTypes] = IntStream.of(batchedTasks).sum();
+		reservedTasks[numOfAppTypes] = IntStream.of(reservedTasks).sum();
+		retriedTasks[numOfAppTypes] = IntStream.of(retriedTasks).sum();
+		acceptedRetriedTasks[numOfAppTypes] = IntStream.of(acceptedRetriedTasks).sum();
+		solverRetries[numOfAppTypes] = IntStream.of(solverRetries).sum();
 
 		cost[numOfAppTypes] = DoubleStream.of(cost).sum();
 		QoE[numOfAppTypes] = DoubleStream.of(QoE).sum();
@@ -742,7 +795,13 @@ public class SimLogger {
 									  + "rejected_tasks_due_to_wlan_range=" + Integer.toString(refectedTaskDuetoWlanRange[i]) + SimSettings.NEW_LINE
 									  + "error_tasks_due_to_ram_capacity=" + Integer.toString(failTaskDueToRamCapacity[i]) + SimSettings.NEW_LINE
 									  + "error_tasks_due_to_delay_limit=" + Integer.toString(failTaskDueToDelayLimit[i]) + SimSettings.NEW_LINE
-									  + "rejected_tasks_by_solver=" + Integer.toString(rejectedTasksBySolver[i]) + SimSettings.NEW_LINE;
+									  + "rejected_tasks_by_solver=" + Integer.toString(rejectedTasksBySolver[i]) + SimSettings.NEW_LINE
+									  + "fast_path_tasks=" + Integer.toString(fastPathTasks[i]) + SimSettings.NEW_LINE
+									  + "batched_tasks=" + Integer.toString(batchedTasks[i]) + SimSettings.NEW_LINE
+									  + "reserved_tasks=" + Integer.toString(reservedTasks[i]) + SimSettings.NEW_LINE
+									  + "retried_tasks=" + Integer.toString(retriedTasks[i]) + SimSettings.NEW_LINE
+									  + "accepted_retried_tasks=" + Integer.toString(acceptedRetriedTasks[i]) + SimSettings.NEW_LINE
+									  + "solver_retries=" + Integer.toString(solverRetries[i]) + SimSettings.NEW_LINE;
 
 				// check if the divisor is zero in order to avoid division by zero problem
 				double _serviceTimeOnEdge = (completedTaskOnEdge[i] == 0) ? 0.0
@@ -796,7 +855,8 @@ public class SimLogger {
 				double _orchestratorOverhead = orchestratorOverhead[i] / (double) (failedTask[i] + completedTask[i]);
 				
 				String genericResult6 =  "experiment_time=" + Long.toString((endTime-startTime)/1000)  + SimSettings.NEW_LINE
-						+ "cost_of_vm_utilization=" + Double.toString(costOfVmUtilization) + SimSettings.NEW_LINE;
+						+ "cost_of_vm_utilization=" + Double.toString(costOfVmUtilization) + SimSettings.NEW_LINE
+						+ "orchestrator_overhead=" + Double.toString(_orchestratorOverhead) + SimSettings.NEW_LINE;
 						
 				appendToFile(genericBWs[i], genericResult1);
 				appendToFile(genericBWs[i], genericResult2);
@@ -824,6 +884,17 @@ public class SimLogger {
 							+ completedTask[i] + "("
 							+ completedTaskOnEdge[i] + "/"
 							+ completedTaskOnCloud[i] + ")");
+
+					printLine("# of tasks (fast path/reserved/batched): "
+							+ fastPathTasks[i] + "/"
+							+ reservedTasks[i] + "/"
+							+ batchedTasks[i]);
+
+					printLine("# of retried tasks (accepted/rejected): "
+							+ retriedTasks[i] + "("
+							+ acceptedRetriedTasks[i] + "/"
+							+ (retriedTasks[i] - acceptedRetriedTasks[i]) + ") after "
+							+ solverRetries[i] + " retries");
 					
 					printLine("---------------------------------------");
 				}
@@ -935,6 +1006,17 @@ public class SimLogger {
 				+ String.format("%.6f", totalVmLoadOnCloud / (double) vmLoadList.size()) + "/"
 				+ String.format("%.6f", totalVmLoadOnMobile / (double) vmLoadList.size()));
 
+		printLine("# of tasks (fast path/reserved/batched): "
+				+ fastPathTasks[numOfAppTypes] + "/"
+				+ reservedTasks[numOfAppTypes] + "/"
+				+ batchedTasks[numOfAppTypes]);
+
+		printLine("# of retried tasks (accepted/rejected): "
+				+ retriedTasks[numOfAppTypes] + "("
+				+ acceptedRetriedTasks[numOfAppTypes] + "/"
+				+ (retriedTasks[numOfAppTypes] - acceptedRetriedTasks[numOfAppTypes]) + ") after "
+				+ solverRetries[numOfAppTypes] + " retries");
+
 		printLine("average cost: " + cost[numOfAppTypes] / completedTask[numOfAppTypes] + "$");
 		printLine("average overhead: " + orchestratorOverhead[numOfAppTypes] / (failedTask[numOfAppTypes] + completedTask[numOfAppTypes]) + " ns");
 		printLine("average QoE (for all): " + QoE[numOfAppTypes] / (failedTask[numOfAppTypes] + completedTask[numOfAppTypes]) + "%");
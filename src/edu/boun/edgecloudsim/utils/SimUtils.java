@@ -11,29 +11,24 @@ package edu.boun.edgecloudsim.utils;
 
 import java.io.File;
 import java.util.Date;
-import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.math3.random.RandomGenerator;
-import org.apache.commons.math3.random.Well19937c;
-
 public class SimUtils {
 
-	public static final RandomGenerator RNG = new Well19937c(54321);
-    
+    //the random numbers come from the shared stream of RandomStreams
     public static int getRandomNumber(int start, int end) {
 		long range = (long)end - (long)start + 1;
-		long fraction = (long)(range * RNG.nextDouble());
+		long fraction = (long)(range * RandomStreams.getSharedStream().nextDouble());
 		return (int)(fraction + start); 
     }
     public static double getRandomDoubleNumber(double start, double end) {
 		double range = end - start;
-		double fraction = (range * RNG.nextDouble());
+		double fraction = (range * RandomStreams.getSharedStream().nextDouble());
 		return (fraction + start); 
     }
     public static long getRandomLongNumber(long start, long end) {
 		long range = (long)end - (long)start + 1;
-		long fraction = (long)(range * RNG.nextDouble());
+		long fraction = (long)(range * RandomStreams.getSharedStream().nextDouble());
 		return (fraction + start); 
     }
 
@@ -0,0 +1,78 @@
+/*
+ * Title:        EdgeCloudSim - Splittable Random Generator
+ *
+ * Description:  RandomGenerator of commons-math backed by a SplittableRandom
+ *               so that the distributions of commons-math can draw from the
+ *               streams of RandomStreams. split() gives an independent
+ *               stream, the same sequence of calls always gives the same
+ *               numbers
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.SplittableRandom;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+public class SplittableRandomGenerator extends BitsStreamGenerator {
+	private static final long serialVersionUID = 1L;
+
+	private SplittableRandom random;
+
+	public SplittableRandomGenerator(long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	private SplittableRandomGenerator(SplittableRandom _random) {
+		random = _random;
+	}
+
+	/*
+	 * returns a new stream independent of this one, this stream advances
+	 */
+	public SplittableRandomGenerator split() {
+		return new SplittableRandomGenerator(random.split());
+	}
+
+	@Override
+	public void setSeed(int seed) {
+		setSeed((long) seed);
+	}
+
+	@Override
+	public void setSeed(int[] seed) {
+		long value = 0;
+		for(int i=0; i<seed.length; i++)
+			value = value * 31 + seed[i];
+		setSeed(value);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		random = new SplittableRandom(seed);
+		clear();
+	}
+
+	@Override
+	protected int next(int bits) {
+		return random.nextInt() >>> (32 - bits);
+	}
+
+	@Override
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	@Override
+	public int nextInt() {
+		return random.nextInt();
+	}
+
+	@Override
+	public long nextLong() {
+		return random.nextLong();
+	}
+}
@@ -12,6 +12,7 @@ package edu.boun.edgecloudsim.utils;
 
 import org.apache.commons.math3.distribution.ExponentialDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
 
 import edu.boun.edgecloudsim.core.SimSettings;
 
@@ -21,6 +22,9 @@ public class TaskProperty {
     private int taskType;
     private int pesNumber;
     private int mobileDeviceId;
+    private boolean periodic;
+    private int numOfRetries;
+    private double orchestrationDelay;
     
     public TaskProperty(double _startTime, int _mobileDeviceId, int _taskType, int _pesNumber, long _length, long _inputFileSize, long _outputFileSize) {
     	startTime=_startTime;
@@ -32,7 +36,7 @@ public class TaskProperty {
        	inputFileSize = _outputFileSize;
 	}
     
-    public TaskProperty(int _mobileDeviceId, int _taskType, double _startTime, ExponentialDistribution[][] expRngList, NormalDistribution[] expNorList) {
+    public TaskProperty(int _mobileDeviceId, int _taskType, double _startTime, ExponentialDistribution[][] expRngList, NormalDistribution[] expNorList, RandomGenerator random) {
     	
     	if (_taskType == 16) {
     		//Hardcoded value for AR Video task
@@ -42,7 +46,7 @@ public class TaskProperty {
         	
         	inputFileSize = 41;
         	outputFileSize =41;
-        	double computationTypeSelector = SimUtils.getRandomDoubleNumber(0,100);
+        	double computationTypeSelector = 100 * random.nextDouble();
 			int computationTypeCategory = 0;
 			if(computationTypeSelector<= 47) {
 				computationTypeCategory=0; //first case
@@ -54,6 +58,7 @@ public class TaskProperty {
         	length = (long)expNorList[computationTypeCategory].sample();//MI
         	
         	pesNumber = 3;//Check the power of the cores
+        	periodic = true;
     	}
     	else if (_taskType == 17) {
     		//Hardcoded value for AR User task
@@ -108,4 +113,34 @@ public class TaskProperty {
     public int getMobileDeviceId(){
     	return mobileDeviceId;
     }
+
+    /*
+     * returns true for the frames of a periodic stream (AR video)
+     */
+    public boolean isPeriodic(){
+    	return periodic;
+    }
+
+    /*
+     * returns how many times the task was sent again to the solver after a rejection
+     */
+    public int getNumOfRetries(){
+    	return numOfRetries;
+    }
+
+    public void addRetry(){
+    	numOfRetries++;
+    }
+
+    /*
+     * returns the time (seconds) the task spent waiting for the orchestrator,
+     * summed over its retries
+     */
+    public double getOrchestrationDelay(){
+    	return orchestrationDelay;
+    }
+
+    public void addOrchestrationDelay(double delay){
+    	orchestrationDelay += delay;
+    }
 }